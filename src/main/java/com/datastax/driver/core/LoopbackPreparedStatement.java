@@ -0,0 +1,209 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.datastax.driver.core;
+
+import com.datastax.driver.core.policies.RetryPolicy;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A prepared statement which was never sent to a server, for running and benchmarking the client without a cluster.
+ * It is in the driver's package, since column definitions and prepared ids can only be made from there.
+ */
+public class LoopbackPreparedStatement implements PreparedStatement {
+
+    private final String query;
+    private final ColumnDefinitions variables;
+    private final CodecRegistry codecRegistry;
+    private final PreparedId preparedId;
+    private volatile ConsistencyLevel consistency;
+    private volatile ConsistencyLevel serialConsistency;
+    private volatile Map<String, ByteBuffer> outgoingPayload;
+    private volatile Boolean idempotent;
+
+    /**
+     * @param keyspace the keyspace of the table
+     * @param table the table which the variables are columns of
+     * @param query the statement text
+     * @param namesAndTypes pairs of variable name and {@link DataType}, in variable order
+     */
+    public LoopbackPreparedStatement(String keyspace, String table, String query, Object... namesAndTypes) {
+        this(CodecRegistry.DEFAULT_INSTANCE, keyspace, table, query, namesAndTypes);
+    }
+
+    /**
+     * @param codecRegistry the registry which values are serialized with when they are bound
+     * @param keyspace the keyspace of the table
+     * @param table the table which the variables are columns of
+     * @param query the statement text
+     * @param namesAndTypes pairs of variable name and {@link DataType}, in variable order
+     */
+    public LoopbackPreparedStatement(CodecRegistry codecRegistry, String keyspace, String table, String query, Object... namesAndTypes) {
+        this.query = query;
+        this.codecRegistry = codecRegistry;
+        ColumnDefinitions.Definition[] definitions = new ColumnDefinitions.Definition[namesAndTypes.length / 2];
+        for (int idx = 0; idx < definitions.length; idx++) {
+            definitions[idx] = new ColumnDefinitions.Definition(
+                    keyspace, table, (String) namesAndTypes[idx * 2], (DataType) namesAndTypes[idx * 2 + 1]);
+        }
+        this.variables = new ColumnDefinitions(definitions, codecRegistry);
+        this.preparedId = new PreparedId(
+                MD5Digest.wrap(query.getBytes(StandardCharsets.UTF_8)), variables, ColumnDefinitions.EMPTY,
+                null, ProtocolVersion.V4);
+    }
+
+    @Override
+    public ColumnDefinitions getVariables() {
+        return variables;
+    }
+
+    @Override
+    public BoundStatement bind(Object... values) {
+        return new BoundStatement(this).bind(values);
+    }
+
+    @Override
+    public BoundStatement bind() {
+        return new BoundStatement(this);
+    }
+
+    @Override
+    public PreparedStatement setRoutingKey(ByteBuffer routingKey) {
+        return this;
+    }
+
+    @Override
+    public PreparedStatement setRoutingKey(ByteBuffer... routingKeyComponents) {
+        return this;
+    }
+
+    @Override
+    public ByteBuffer getRoutingKey() {
+        return null;
+    }
+
+    @Override
+    public PreparedStatement setConsistencyLevel(ConsistencyLevel consistency) {
+        this.consistency = consistency;
+        return this;
+    }
+
+    @Override
+    public ConsistencyLevel getConsistencyLevel() {
+        return consistency;
+    }
+
+    @Override
+    public PreparedStatement setSerialConsistencyLevel(ConsistencyLevel serialConsistency) {
+        this.serialConsistency = serialConsistency;
+        return this;
+    }
+
+    @Override
+    public ConsistencyLevel getSerialConsistencyLevel() {
+        return serialConsistency;
+    }
+
+    @Override
+    public String getQueryString() {
+        return query;
+    }
+
+    @Override
+    public String getQueryKeyspace() {
+        return null;
+    }
+
+    @Override
+    public PreparedStatement enableTracing() {
+        return this;
+    }
+
+    @Override
+    public PreparedStatement disableTracing() {
+        return this;
+    }
+
+    @Override
+    public boolean isTracing() {
+        return false;
+    }
+
+    @Override
+    public PreparedStatement setRetryPolicy(RetryPolicy policy) {
+        return this;
+    }
+
+    @Override
+    public RetryPolicy getRetryPolicy() {
+        return null;
+    }
+
+    @Override
+    public PreparedId getPreparedId() {
+        return preparedId;
+    }
+
+    @Override
+    public Map<String, ByteBuffer> getIncomingPayload() {
+        return null;
+    }
+
+    @Override
+    public Map<String, ByteBuffer> getOutgoingPayload() {
+        return outgoingPayload;
+    }
+
+    @Override
+    public PreparedStatement setOutgoingPayload(Map<String, ByteBuffer> payload) {
+        this.outgoingPayload = (payload == null) ? null : Collections.unmodifiableMap(payload);
+        return this;
+    }
+
+    @Override
+    public CodecRegistry getCodecRegistry() {
+        return codecRegistry;
+    }
+
+    @Override
+    public PreparedStatement setIdempotent(Boolean idempotent) {
+        this.idempotent = idempotent;
+        return this;
+    }
+
+    @Override
+    public Boolean isIdempotent() {
+        return idempotent;
+    }
+
+    /**
+     * @return a close future which is already done, for sessions which have nothing to close
+     */
+    public static CloseFuture closedFuture() {
+        return CloseFuture.immediateFuture();
+    }
+
+    @Override
+    public String toString() {
+        return query;
+    }
+}
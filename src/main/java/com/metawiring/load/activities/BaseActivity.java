@@ -20,7 +20,7 @@ package com.metawiring.load.activities;
 
 import com.metawiring.load.activity.Activity;
 import com.metawiring.load.core.ExecutionContext;
-import com.metawiring.load.core.IndexedThreadFactory;
+import com.metawiring.load.core.ThreadIndex;
 import com.metawiring.load.generator.GeneratorBindingList;
 import com.metawiring.load.generator.GeneratorInstanceSource;
 import com.metawiring.load.generator.ScopedCachingGeneratorSource;
@@ -45,8 +45,8 @@ public abstract class BaseActivity implements Activity {
     public void cleanup() { }
 
     protected String getThreadMetricName(String metricIdentifier) {
-        String threadName = ((IndexedThreadFactory.IndexedThread) Thread.currentThread()).getMetricName();
-        int threadIndex = ((IndexedThreadFactory.IndexedThread) Thread.currentThread()).getThreadIndex();
+        String threadName = ThreadIndex.get().getMetricName();
+        int threadIndex = ThreadIndex.get().getThreadIndex();
         String threadMetricName = name(
                 getClass().getSimpleName(),
                 threadName,
@@ -55,7 +55,7 @@ public abstract class BaseActivity implements Activity {
         return threadMetricName;
     }
     protected void setThreadMetricBasename(String threadMetricName) {
-        ((IndexedThreadFactory.IndexedThread) Thread.currentThread()).setMetricName(threadMetricName);
+        ThreadIndex.get().setMetricName(threadMetricName);
     }
 
     protected void instrumentException(Exception e) {
@@ -28,6 +28,7 @@ import com.metawiring.load.activities.cql.BaseActivityContext;
 import com.metawiring.load.config.ActivityDef;
 import com.metawiring.load.config.StatementDef;
 import com.metawiring.load.core.ExecutionContext;
+import com.metawiring.load.core.HdrMetrics;
 import com.metawiring.load.core.ReadyStatement;
 import com.metawiring.load.core.ReadyStatements;
 import com.metawiring.load.core.ReadyStatementsTemplate;
@@ -55,10 +56,10 @@ public class CQLActivityContext extends BaseActivityContext implements ActivityC
 
     public CQLActivityContext(ActivityDef def, ScopedCachingGeneratorSource scopedCachingGeneratorSource, ExecutionContext executionContext) {
         super(def, scopedCachingGeneratorSource, executionContext);
-        timerOps = executionContext.getMetrics().timer(name(def.getName(), "ops-total"));
-        timerWaits = executionContext.getMetrics().timer(name(def.getName(), "ops-wait"));
+        timerOps = HdrMetrics.timer(executionContext.getMetrics(), name(def.getName(), "ops-total"));
+        timerWaits = HdrMetrics.timer(executionContext.getMetrics(), name(def.getName(), "ops-wait"));
         activityAsyncPendingCounter = executionContext.getMetrics().counter(name(def.getName(), "async-pending"));
-        triesHistogram = executionContext.getMetrics().histogram(name(def.getName(), "tries-histogram"));
+        triesHistogram = HdrMetrics.histogram(executionContext.getMetrics(), name(def.getName(), "tries-histogram"));
         executionContext.getMetrics().meter(name(def.getName(), "exceptions", "PlaceHolderException"));
         session = executionContext.getSession();
         this.executionContext = executionContext;
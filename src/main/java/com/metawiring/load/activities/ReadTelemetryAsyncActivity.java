@@ -27,6 +27,7 @@ import com.google.common.collect.ImmutableMap;
 import com.metawiring.load.config.ActivityDef;
 import com.metawiring.load.config.StatementDef;
 import com.metawiring.load.core.ExecutionContext;
+import com.metawiring.load.core.HdrMetrics;
 import com.metawiring.load.core.ReadyStatements;
 import com.metawiring.load.core.ReadyStatementsTemplate;
 import com.metawiring.load.generator.GeneratorBindingList;
@@ -75,7 +76,7 @@ public class ReadTelemetryAsyncActivity extends BaseActivity implements Activity
 
                                 ImmutableMap.<String, String>builder()
                                         .put("source", "ThreadNumGenerator")
-                                        .put("epoch_hour", "DateSequenceFieldGenerator:1000:YYYY-MM-dd-HH")
+                                        .put("epoch_hour", "DateBucketFieldGenerator:1000:YYYY-MM-dd-HH")
                                         .put("param", "LineExtractGenerator:data/variable_words.txt")
                                         .build()
                         )
@@ -130,12 +131,12 @@ public class ReadTelemetryAsyncActivity extends BaseActivity implements Activity
             createSchema();
         }
 
-        timerOps = cqlSharedContext.getExecutionContext().getMetrics().timer(name(ReadTelemetryAsyncActivity.class.getSimpleName(), "ops-total"));
-        timerWaits = cqlSharedContext.getExecutionContext().getMetrics().timer(name(ReadTelemetryAsyncActivity.class.getSimpleName(), "ops-wait"));
+        timerOps = HdrMetrics.timer(cqlSharedContext.getExecutionContext().getMetrics(), name(ReadTelemetryAsyncActivity.class.getSimpleName(), "ops-total"));
+        timerWaits = HdrMetrics.timer(cqlSharedContext.getExecutionContext().getMetrics(), name(ReadTelemetryAsyncActivity.class.getSimpleName(), "ops-wait"));
 
         activityAsyncPendingCounter = cqlSharedContext.getExecutionContext().getMetrics().counter(name(ReadTelemetryAsyncActivity.class.getSimpleName(), "async-pending"));
 
-        triesHistogram = cqlSharedContext.getExecutionContext().getMetrics().histogram(name(ReadTelemetryAsyncActivity.class.getSimpleName(), "tries-histogram"));
+        triesHistogram = HdrMetrics.histogram(cqlSharedContext.getExecutionContext().getMetrics(), name(ReadTelemetryAsyncActivity.class.getSimpleName(), "tries-histogram"));
 
         // To populate the namespace
         cqlSharedContext.getExecutionContext().getMetrics().meter(name(getClass().getSimpleName(), "exceptions", "PlaceHolderException"));
@@ -158,12 +159,12 @@ public class ReadTelemetryAsyncActivity extends BaseActivity implements Activity
 
         // Not at limit, let the good times roll
         // This section fills the async pipeline to the configured limit
-        while ((submittedCycle < endCycle) && (pendingRq < maxAsync)) {
+        while ((submittedCycle + 1 < endCycle) && (pendingRq < maxAsync)) {
             long submittingCycle = submittedCycle + 1;
             try {
 
                 TimedResultSetFuture trsf = new TimedResultSetFuture();
-                trsf.boundStatement = readyStatements.getNext(submittingCycle).bind();
+                trsf.boundStatement = readyStatements.getNext(submittingCycle).bind(submittingCycle);
                 trsf.timerContext = timerOps.time();
                 trsf.rsFuture = cqlSharedContext.session.executeAsync(trsf.boundStatement);
                 trsf.tries++;
@@ -28,6 +28,7 @@ import com.google.common.collect.ImmutableMap;
 import com.metawiring.load.config.ActivityDef;
 import com.metawiring.load.config.StatementDef;
 import com.metawiring.load.core.ExecutionContext;
+import com.metawiring.load.core.HdrMetrics;
 import com.metawiring.load.core.ReadyStatements;
 import com.metawiring.load.generator.GeneratorBindingList;
 import com.metawiring.load.generator.ScopedCachingGeneratorSource;
@@ -73,7 +74,7 @@ public class WriteTelemetryBatchAsyncActivity extends BaseActivity implements Ac
                                         "     values (<<source>>,<<epoch_hour>>,<<param>>,<<ts>>,<<data>>,<<cycle>>);",
                                 ImmutableMap.<String, String>builder()
                                         .put("source", "ThreadNumGenerator")
-                                        .put("epoch_hour", "DateSequenceFieldGenerator:1000:YYYY-MM-dd-HH")
+                                        .put("epoch_hour", "DateBucketFieldGenerator:1000:YYYY-MM-dd-HH")
                                         .put("param", "LineExtractGenerator:data/variable_words.txt")
                                         .put("ts", "DateSequenceGenerator:1000")
                                         .put("data", "LoremExtractGenerator:1000:1000")
@@ -134,12 +135,12 @@ public class WriteTelemetryBatchAsyncActivity extends BaseActivity implements Ac
             createSchema();
         }
 
-        timerOps = cqlSharedContext.getExecutionContext().getMetrics().timer(name(WriteTelemetryBatchAsyncActivity.class.getSimpleName(), "ops-total"));
-        timerWaits = cqlSharedContext.getExecutionContext().getMetrics().timer(name(WriteTelemetryBatchAsyncActivity.class.getSimpleName(), "ops-wait"));
+        timerOps = HdrMetrics.timer(cqlSharedContext.getExecutionContext().getMetrics(), name(WriteTelemetryBatchAsyncActivity.class.getSimpleName(), "ops-total"));
+        timerWaits = HdrMetrics.timer(cqlSharedContext.getExecutionContext().getMetrics(), name(WriteTelemetryBatchAsyncActivity.class.getSimpleName(), "ops-wait"));
 
         activityAsyncPendingCounter = cqlSharedContext.getExecutionContext().getMetrics().counter(name(WriteTelemetryBatchAsyncActivity.class.getSimpleName(), "async-pending"));
 
-        triesHistogram = cqlSharedContext.getExecutionContext().getMetrics().histogram(name(WriteTelemetryBatchAsyncActivity.class.getSimpleName(), "tries-histogram"));
+        triesHistogram = HdrMetrics.histogram(cqlSharedContext.getExecutionContext().getMetrics(), name(WriteTelemetryBatchAsyncActivity.class.getSimpleName(), "tries-histogram"));
 
         // To populate the namespace
         cqlSharedContext.getExecutionContext().getMetrics().meter(name(getClass().getSimpleName(), "exceptions", "PlaceHolderException"));
@@ -202,7 +203,7 @@ public class WriteTelemetryBatchAsyncActivity extends BaseActivity implements Ac
 
         // Not at limit, let the good times roll
         // This section fills the async pipeline to the configured limit
-        while ((submittedCycle < endCycle) && (pendingRq < maxAsync)) {
+        while ((submittedCycle + 1 < endCycle) && (pendingRq < maxAsync)) {
             long submittingCycle = submittedCycle + 1;
             try {
 
@@ -266,7 +267,7 @@ public class WriteTelemetryBatchAsyncActivity extends BaseActivity implements Ac
 
         BatchStatement batchStatement = new BatchStatement(batchtype);
         for (int i = 0; i < batchsize; i++) {
-            BoundStatement boundStatement = readyStatements.getNext(submittingCycle+i).bind();
+            BoundStatement boundStatement = readyStatements.getNext(submittingCycle+i).bind(submittingCycle+i);
             batchStatement.add(boundStatement);
         }
 
@@ -20,10 +20,18 @@ package com.metawiring.load.activities.cql;
 
 import com.metawiring.load.config.ActivityDef;
 import com.metawiring.load.core.ExecutionContext;
+import com.metawiring.load.core.SloCounter;
 import com.metawiring.load.generator.ScopedCachingGeneratorSource;
 
 public interface ActivityContext {
     ActivityDef getActivityDef();
     ScopedCachingGeneratorSource getActivityGeneratorSource();
     ExecutionContext getExecutionContext();
+
+    /**
+     * @return the counter of ops against the activity's latency target, or null if the activity does not keep one
+     */
+    default SloCounter getSloCounter() {
+        return null;
+    }
 }
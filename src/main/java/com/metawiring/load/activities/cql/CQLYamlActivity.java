@@ -20,19 +20,29 @@ package com.metawiring.load.activities.cql;
 
 import com.codahale.metrics.Timer;
 import com.datastax.driver.core.ResultSet;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.metawiring.load.activities.ActivityContextAware;
 import com.metawiring.load.activity.Activity;
+import com.metawiring.load.activity.AsyncWindow;
 import com.metawiring.load.activity.TimedResultSetFuture;
 import com.metawiring.load.config.ActivityDef;
 import com.metawiring.load.config.YamlActivityDef;
 import com.metawiring.load.core.ExecutionContext;
 import com.metawiring.load.core.ReadyStatement;
 import com.metawiring.load.core.ReadyStatements;
+import com.metawiring.load.core.ThreadIndex;
 import com.metawiring.load.generator.ScopedCachingGeneratorSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static com.codahale.metrics.MetricRegistry.name;
 
@@ -43,9 +53,12 @@ public class CQLYamlActivity implements Activity, ActivityContextAware<CQLYamlAc
     private long endCycle, submittedCycle;
     private int pendingRq = 0;
     private long maxAsync = 0l;
+    private int threadIndex;
 
     private ReadyStatements readyStatements;
     private LinkedList<TimedResultSetFuture> timedResultSetFutures = new LinkedList<>();
+    private AsyncWindow asyncWindow;
+    private volatile Throwable callbackFailure;
     private CQLYamlActivityContext activityContext;
     private YamlActivityDef yamlActivityDef;
 
@@ -58,8 +71,18 @@ public class CQLYamlActivity implements Activity, ActivityContextAware<CQLYamlAc
 
         this.maxAsync = maxAsync;
         this.endCycle = endCycle;
+        if (activityContext.concurrencyController != null) {
+            threadIndex = ThreadIndex.get().getThreadIndex();
+        }
         submittedCycle = startCycle - 1L;
 
+        String pipeline = activityContext.getActivityDef().getPipeline();
+        if (pipeline.equals("callback")) {
+            asyncWindow = new AsyncWindow((int) maxAsync);
+        } else if (!pipeline.equals("fifo")) {
+            throw new RuntimeException("Unknown pipeline type '" + pipeline + "', use fifo or callback");
+        }
+
         if (activityContext.executionContext.getConfig().createSchema) {
             createSchema();
         }
@@ -92,73 +115,300 @@ public class CQLYamlActivity implements Activity, ActivityContextAware<CQLYamlAc
     @Override
     public void iterate() {
 
+        if (asyncWindow != null) {
+            submitWithCallback(submittedCycle + 1, 0L);
+            return;
+        }
+
         // Not at limit, let the good times roll
         // This section fills the async pipeline to the configured limit
-        while ((submittedCycle < endCycle) && (pendingRq < maxAsync)) {
-            long submittingCycle = submittedCycle + 1;
+        while ((submittedCycle + 1 < endCycle) && (pendingRq < getMaxAsync())) {
             try {
+                submit(submittedCycle + 1, 0L);
+            } catch (Exception e) {
+                instrumentException(e);
+            }
+        }
 
-                TimedResultSetFuture trsf = new TimedResultSetFuture();
-                ReadyStatement nextStatement = readyStatements.getNext(submittingCycle);
-
-                trsf.boundStatement = nextStatement.bind();
+        // This section attempts to process one async response per iteration. It always removes one from the queue.
+        // A failed op is sent again later by the retry scheduler, and goes to the back of the queue in the meantime.
+        TimedResultSetFuture trsf = timedResultSetFutures.pollFirst();
+        if (trsf == null) {
+            throw new RuntimeException("There was not a waiting future. This should never happen.");
+        }
+        if (!awaitCompletion(trsf)) {
+            timedResultSetFutures.addLast(trsf);
+        }
+    }
 
-                trsf.timerContext = activityContext.timerOps.time();
-                trsf.rsFuture = activityContext.session.executeAsync(trsf.boundStatement);
-                trsf.tries++;
+    @Override
+    public void iterate(long intendedStartNanos) {
+        iterate(submittedCycle + 1, intendedStartNanos);
+    }
 
-                timedResultSetFutures.add(trsf);
-                activityContext.activityAsyncPendingCounter.inc();
-                pendingRq++;
-                submittedCycle++;
+    /**
+     * When the activity is paced by a rate limiter, or its cycles are dispensed by the harness, each iteration
+     * submits exactly one op, stamped with the time it was scheduled to start. Completed ops are then taken from
+     * the front of the pipeline without blocking, unless the pipeline is full. The service time of each op is
+     * taken from when the driver completed it, not from when it was taken from the pipeline, so a slow reap does
+     * not inflate it.
+     */
+    @Override
+    public void iterate(long cycle, long intendedStartNanos) {
+        if (asyncWindow != null) {
+            submitWithCallback(cycle, intendedStartNanos);
+            return;
+        }
 
+        if (cycle < endCycle) {
+            try {
+                submit(cycle, intendedStartNanos);
             } catch (Exception e) {
                 instrumentException(e);
             }
         }
 
-        // This section attempts to process one async response per iteration. It always removes one from the queue,
-        // and if necessary, resubmits and waits synchronously for retries. (up to 9 more times)
-        int triesLimit = 10;
+        TimedResultSetFuture trsf;
+        while ((trsf = timedResultSetFutures.peekFirst()) != null) {
+            if (!trsf.rsFuture.isDone() && pendingRq < getMaxAsync()) {
+                break;
+            }
+            trsf = timedResultSetFutures.pollFirst();
+            if (!awaitCompletion(trsf)) {
+                timedResultSetFutures.addLast(trsf);
+            }
+        }
+    }
 
+    private void submit(long cycle, long intendedStartNanos) {
+        TimedResultSetFuture trsf = new TimedResultSetFuture();
+        ReadyStatement nextStatement = readyStatements.getNext(cycle);
 
-        TimedResultSetFuture trsf = timedResultSetFutures.pollFirst();
-        if (trsf == null) {
-            throw new RuntimeException("There was not a waiting future. This should never happen.");
-        }
+        trsf.boundStatement = nextStatement.bind(cycle);
+        trsf.intendedStartNanos = intendedStartNanos;
+
+        trsf.startNanos = System.nanoTime();
+        activityContext.retryPolicy.getRetryBudget().deposit();
+        executeAsync(trsf);
+
+        timedResultSetFutures.add(trsf);
+        activityContext.activityAsyncPendingCounter.inc();
+        pendingRq++;
+        submittedCycle = cycle;
+    }
+
+    private void executeAsync(TimedResultSetFuture trsf) {
+        trsf.rsFuture = activityContext.session.executeAsync(trsf.boundStatement);
+        trsf.tries++;
+        stampCompletion(trsf);
+    }
+
+    /**
+     * Send a failed op again after the backoff delay. The retry is sent from the retry scheduler, so the harness
+     * thread can keep working on the other ops in its pipeline. Until then, the op's future stands in for the
+     * result of the retry.
+     */
+    private void executeAsyncLater(TimedResultSetFuture trsf) {
+        SettableFuture<ListenableFuture<ResultSet>> retryFuture = SettableFuture.create();
+        trsf.rsFuture = Futures.dereference(retryFuture);
+        trsf.tries++;
+        stampCompletion(trsf);
 
-        while (trsf.tries < triesLimit) {
-            Timer.Context waitTimer = null;
+        activityContext.retryScheduler.schedule(() -> {
             try {
-                waitTimer = activityContext.timerWaits.time();
-                ResultSet resultSet = trsf.rsFuture.getUninterruptibly();
-                waitTimer.stop();
-                waitTimer = null;
-                break;
+                retryFuture.set(activityContext.session.executeAsync(trsf.boundStatement));
             } catch (Exception e) {
-                if (waitTimer != null) {
-                    waitTimer.stop();
-                }
-                instrumentException(e);
-                trsf.rsFuture = activityContext.session.executeAsync(trsf.boundStatement);
-                try {
-                    Thread.sleep(trsf.tries * 100l);
-                } catch (InterruptedException ignored) {
-                }
-                trsf.tries++;
+                retryFuture.setException(e);
             }
+        }, activityContext.retryPolicy.getDelayNanos(trsf.tries - 1), TimeUnit.NANOSECONDS);
+    }
+
+    private void stampCompletion(TimedResultSetFuture trsf) {
+        if (trsf.intendedStartNanos == 0L) {
+            trsf.completion = null;
+            return;
+        }
+        TimedResultSetFuture.CompletionStamp stamp = new TimedResultSetFuture.CompletionStamp();
+        trsf.completion = stamp;
+        trsf.rsFuture.addListener(() -> stamp.nanos = System.nanoTime(), MoreExecutors.sameThreadExecutor());
+    }
+
+    /**
+     * @return false if the op failed and has been scheduled for a retry, otherwise true
+     */
+    private boolean awaitCompletion(TimedResultSetFuture trsf) {
+        Timer.Context waitTimer = activityContext.timerWaits.time();
+        boolean succeeded = true;
+        try {
+            Uninterruptibles.getUninterruptibly(trsf.rsFuture);
+        } catch (Exception e) {
+            instrumentException((e instanceof ExecutionException) ? e.getCause() : e);
+            if (shouldRetry(trsf)) {
+                executeAsyncLater(trsf);
+                return false;
+            }
+            succeeded = false;
+        } finally {
+            waitTimer.stop();
         }
 
         pendingRq--;
+        long stampedNanos = (trsf.completion != null) ? trsf.completion.nanos : 0L;
+        long completedNanos = (stampedNanos != 0L) ? stampedNanos : System.nanoTime();
+        recordCompletion(trsf, completedNanos, succeeded);
+        return true;
+    }
+
+    /**
+     * An op is only retried while it has tries left, and while the activity's retry budget can pay for it.
+     */
+    private boolean shouldRetry(TimedResultSetFuture trsf) {
+        if (trsf.tries >= activityContext.retryPolicy.getTriesLimit()) {
+            activityContext.retriesExhaustedMeter.mark();
+            return false;
+        }
+        if (!activityContext.retryPolicy.getRetryBudget().tryWithdraw()) {
+            activityContext.retryBudgetExhaustedMeter.mark();
+            return false;
+        }
+        activityContext.retriesMeter.mark();
+        return true;
+    }
+
+    /**
+     * In the callback pipeline, the harness thread only waits for room in the async window. Each op is completed,
+     * retried, and measured by the driver thread which delivers its result, so one slow op does not hold back
+     * the ones which were sent after it.
+     */
+    private void submitWithCallback(long cycle, long intendedStartNanos) {
+        Throwable failure = callbackFailure;
+        if (failure != null) {
+            throw new RuntimeException(failure);
+        }
+        if (cycle >= endCycle) {
+            return;
+        }
+
+        if (activityContext.concurrencyController != null) {
+            asyncWindow.setLimit((int) getMaxAsync());
+        }
+        Timer.Context waitTimer = activityContext.timerWaits.time();
+        asyncWindow.acquire();
+        waitTimer.stop();
+
+        TimedResultSetFuture trsf = new TimedResultSetFuture();
+        try {
+            trsf.boundStatement = readyStatements.getNext(cycle).bind(cycle);
+        } catch (Exception e) {
+            asyncWindow.release();
+            instrumentException(e);
+            return;
+        } finally {
+            submittedCycle = cycle;
+        }
+        trsf.intendedStartNanos = intendedStartNanos;
+        trsf.startNanos = System.nanoTime();
+        activityContext.activityAsyncPendingCounter.inc();
+        activityContext.retryPolicy.getRetryBudget().deposit();
+        executeWithCallback(trsf);
+    }
+
+    private void executeWithCallback(TimedResultSetFuture trsf) {
+        CompletionCallback completionCallback = new CompletionCallback(trsf);
+        trsf.tries++;
+        try {
+            trsf.rsFuture = activityContext.session.executeAsync(trsf.boundStatement);
+        } catch (Exception e) {
+            completionCallback.onFailure(e);
+            return;
+        }
+        Futures.addCallback(trsf.rsFuture, completionCallback, MoreExecutors.sameThreadExecutor());
+    }
+
+    private class CompletionCallback implements FutureCallback<ResultSet> {
+        private final TimedResultSetFuture trsf;
+
+        private CompletionCallback(TimedResultSetFuture trsf) {
+            this.trsf = trsf;
+        }
+
+        @Override
+        public void onSuccess(ResultSet result) {
+            complete(true);
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+            countException(t);
+            if (activityContext.executionContext.getConfig().diagnoseExceptions) {
+                callbackFailure = t;
+                complete(false);
+            } else if (shouldRetry(trsf)) {
+                activityContext.retryScheduler.schedule(
+                        () -> executeWithCallback(trsf),
+                        activityContext.retryPolicy.getDelayNanos(trsf.tries),
+                        TimeUnit.NANOSECONDS
+                );
+            } else {
+                complete(false);
+            }
+        }
+
+        private void complete(boolean succeeded) {
+            recordCompletion(trsf, System.nanoTime(), succeeded);
+            asyncWindow.release();
+        }
+    }
+
+    /**
+     * @return this thread's limit of pending ops, as given by the concurrency controller if there is one
+     */
+    private long getMaxAsync() {
+        if (activityContext.concurrencyController != null) {
+            return activityContext.concurrencyController.getThreadLimit(threadIndex);
+        }
+        return maxAsync;
+    }
+
+    /**
+     * The concurrency controller and the SLO counter each count a failed try as an error when its exception is
+     * seen, so an op which gave up is not counted again as a success here.
+     */
+    private void recordCompletion(TimedResultSetFuture trsf, long completedNanos, boolean succeeded) {
         activityContext.activityAsyncPendingCounter.dec();
-        trsf.timerContext.stop();
+        if (succeeded && activityContext.concurrencyController != null) {
+            activityContext.concurrencyController.recordSuccess(completedNanos - trsf.startNanos);
+        }
+        if (succeeded && activityContext.sloCounter != null) {
+            long fromNanos = (trsf.intendedStartNanos != 0L) ? trsf.intendedStartNanos : trsf.startNanos;
+            activityContext.sloCounter.recordSuccess(completedNanos - fromNanos);
+        }
+        activityContext.timerOps.update(completedNanos - trsf.startNanos, TimeUnit.NANOSECONDS);
+        if (trsf.intendedStartNanos != 0L) {
+            activityContext.timerResponse.update(completedNanos - trsf.intendedStartNanos, TimeUnit.NANOSECONDS);
+        }
         activityContext.triesHistogram.update(trsf.tries);
-
     }
 
+    /**
+     * Ops which are still in the pipeline after the last iteration are completed here, so that every submitted
+     * op is accounted for.
+     */
     @Override
     public void cleanup() {
-
+        if (asyncWindow != null) {
+            asyncWindow.awaitEmpty();
+            if (callbackFailure != null) {
+                throw new RuntimeException(callbackFailure);
+            }
+            return;
+        }
+        TimedResultSetFuture trsf;
+        while ((trsf = timedResultSetFutures.pollFirst()) != null) {
+            if (!awaitCompletion(trsf)) {
+                timedResultSetFutures.addLast(trsf);
+            }
+        }
     }
 
     @Override
@@ -177,12 +427,22 @@ public class CQLYamlActivity implements Activity, ActivityContextAware<CQLYamlAc
         return CQLYamlActivityContext.class;
     }
 
-    protected void instrumentException(Exception e) {
-        String exceptionType = e.getClass().getSimpleName();
-        activityContext.executionContext.getMetrics().meter(name(activityContext.getActivityDef().getName(), "exceptions", exceptionType)).mark();
+    protected void instrumentException(Throwable e) {
+        countException(e);
         if (activityContext.executionContext.getConfig().diagnoseExceptions) {
             throw new RuntimeException(e);
         }
     }
 
+    private void countException(Throwable t) {
+        if (activityContext.concurrencyController != null) {
+            activityContext.concurrencyController.recordError();
+        }
+        if (activityContext.sloCounter != null) {
+            activityContext.sloCounter.recordError();
+        }
+        String exceptionType = t.getClass().getSimpleName();
+        activityContext.executionContext.getMetrics().meter(name(activityContext.getActivityDef().getName(), "exceptions", exceptionType)).mark();
+    }
+
 }
\ No newline at end of file
@@ -19,20 +19,30 @@
 package com.metawiring.load.activities.cql;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.Timer;
 import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.Session;
 import com.metawiring.load.config.ActivityDef;
 import com.metawiring.load.config.YamlActivityDef;
+import com.metawiring.load.core.ConcurrencyController;
+import com.metawiring.load.core.RateSearch;
 import com.metawiring.load.core.ExecutionContext;
+import com.metawiring.load.core.HdrMetrics;
 import com.metawiring.load.core.ReadyStatement;
 import com.metawiring.load.core.ReadyStatements;
 import com.metawiring.load.core.ReadyStatementsTemplate;
+import com.metawiring.load.core.RetryPolicy;
+import com.metawiring.load.core.RetryScheduler;
+import com.metawiring.load.core.SloCounter;
 import com.metawiring.load.generator.ScopedCachingGeneratorSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.TimeUnit;
+
 import static com.codahale.metrics.MetricRegistry.name;
 
 /**
@@ -43,8 +53,16 @@ public class CQLYamlActivityContext extends BaseActivityContext implements Activ
 
     Timer timerOps;
     Timer timerWaits;
+    Timer timerResponse;
     Counter activityAsyncPendingCounter;
     Histogram triesHistogram;
+    Meter retriesMeter;
+    Meter retriesExhaustedMeter;
+    Meter retryBudgetExhaustedMeter;
+    RetryPolicy retryPolicy;
+    RetryScheduler retryScheduler;
+    ConcurrencyController concurrencyController;
+    SloCounter sloCounter;
     ReadyStatementsTemplate readyStatementsTemplate;
     Session session;
     ExecutionContext executionContext;
@@ -52,11 +70,29 @@ public class CQLYamlActivityContext extends BaseActivityContext implements Activ
 
     public CQLYamlActivityContext(ActivityDef def, YamlActivityDef yamlActivityDef, ScopedCachingGeneratorSource scopedCachingGeneratorSource, ExecutionContext executionContext) {
         super(def, scopedCachingGeneratorSource, executionContext);
-        timerOps = executionContext.getMetrics().timer(name(def.getName(), "ops-total"));
-        timerWaits = executionContext.getMetrics().timer(name(def.getName(), "ops-wait"));
+        timerOps = HdrMetrics.timer(executionContext.getMetrics(), name(def.getName(), "ops-total"));
+        timerWaits = HdrMetrics.timer(executionContext.getMetrics(), name(def.getName(), "ops-wait"));
+        if (def.getRate() > 0.0D || RateSearch.isEnabled(def)) {
+            timerResponse = HdrMetrics.timer(executionContext.getMetrics(), name(def.getName(), "ops-response"));
+        }
         activityAsyncPendingCounter = executionContext.getMetrics().counter(name(def.getName(), "async-pending"));
-        triesHistogram = executionContext.getMetrics().histogram(name(def.getName(), "tries-histogram"));
+        triesHistogram = HdrMetrics.histogram(executionContext.getMetrics(), name(def.getName(), "tries-histogram"));
         executionContext.getMetrics().meter(name(def.getName(), "exceptions", "PlaceHolderException"));
+        retriesMeter = executionContext.getMetrics().meter(name(def.getName(), "retries"));
+        retriesExhaustedMeter = executionContext.getMetrics().meter(name(def.getName(), "retries-exhausted"));
+        retryBudgetExhaustedMeter = executionContext.getMetrics().meter(name(def.getName(), "retrybudget-exhausted"));
+        retryPolicy = new RetryPolicy(def);
+        retryScheduler = executionContext.getRetryScheduler();
+        logger.info("Retries for " + def.getName() + ": " + retryPolicy);
+        if (RateSearch.isEnabled(def) || def.getParams().containsKey("targetp99")) {
+            sloCounter = new SloCounter(TimeUnit.MILLISECONDS.toNanos(Long.valueOf(def.getParam("targetp99", "0"))));
+        }
+        if (ConcurrencyController.isEnabled(def)) {
+            concurrencyController = new ConcurrencyController(def);
+            ConcurrencyController controller = concurrencyController;
+            executionContext.getMetrics().register(name(def.getName(), "concurrency"), (Gauge<Integer>) controller::getConcurrency);
+            logger.info("Adaptive concurrency for " + def.getName() + ": " + concurrencyController);
+        }
         session = executionContext.getSession();
         this.executionContext = executionContext;
         this.yamlActivityDef =  yamlActivityDef;
@@ -76,6 +112,11 @@ public class CQLYamlActivityContext extends BaseActivityContext implements Activ
         return readyStatementsTemplate;
     }
 
+    @Override
+    public SloCounter getSloCounter() {
+        return sloCounter;
+    }
+
     public ReadyStatementsTemplate getReadyStatementsTemplate() {
 
         if (readyStatementsTemplate==null) {
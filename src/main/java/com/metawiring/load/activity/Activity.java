@@ -60,6 +60,33 @@ public interface Activity {
      */
     void iterate();
 
+    /**
+     * Called by the harness in place of {@link #iterate()} when the activity is paced by a rate limiter.
+     * Activities which can measure response time against the schedule should override this. Others are
+     * simply iterated as usual.
+     * @param intendedStartNanos - the System.nanoTime() value at which this cycle was scheduled to start
+     */
+    default void iterate(long intendedStartNanos) {
+        iterate();
+    }
+
+    /**
+     * Called by the harness in place of {@link #iterate()} when cycles are handed out by a shared
+     * {@link com.metawiring.load.core.CycleDispenser}. In that case, the cycles which a thread sees are not
+     * contiguous, so activities which use the cycle number should override this. Others are simply iterated as
+     * usual.
+     * @param cycle - the cycle to run, within the range given to {@link #prepare(long, long, long)}
+     * @param intendedStartNanos - the System.nanoTime() value at which this cycle was scheduled to start, or 0 if
+     *                           the activity is not paced
+     */
+    default void iterate(long cycle, long intendedStartNanos) {
+        if (intendedStartNanos != 0L) {
+            iterate(intendedStartNanos);
+        } else {
+            iterate();
+        }
+    }
+
     /**
      * Called once after all calls to {@link #iterate()}
      */
@@ -18,16 +18,17 @@
 
 package com.metawiring.load.activity;
 
-import com.codahale.metrics.Counter;
 import com.metawiring.load.activities.ActivityContextAware;
 import com.metawiring.load.activities.cql.ActivityContext;
+import com.metawiring.load.core.CycleDispenser;
 import com.metawiring.load.core.ExecutionContext;
+import com.metawiring.load.core.ProgressTracker;
+import com.metawiring.load.core.RateLimiter;
+import com.metawiring.load.core.ThreadIndex;
 import com.metawiring.load.generator.ScopedCachingGeneratorSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import static com.codahale.metrics.MetricRegistry.name;
-
 /**
  * An activity harness runs a single thread of an activity.
  */
@@ -40,8 +41,21 @@ public class ActivityHarness implements Runnable {
     private final long startCycle, endCycle, maxAsync, interCycleDelay;
     private final ScopedCachingGeneratorSource scopedGeneratorSource;
     private final ActivityContext activityContext;
-
-    public ActivityHarness(ActivityDispenser ActivityDispenser, ExecutionContext context, ScopedCachingGeneratorSource scopedGeneratorSource, long startCycle, long endCycle, long maxAsync, int interCycleDelay, ActivityContext activityContext) {
+    private final RateLimiter rateLimiter;
+    private final CycleDispenser cycleDispenser;
+    private final ProgressTracker progressTracker;
+    private final ProgressTracker.ThreadProgress threadProgress;
+    private final int threadIndex;
+
+    /**
+     * @param rateLimiter - an optional rate limiter, shared by all harnesses of the same activity. When this is
+     *                    provided, each cycle waits for its turn on the limiter's schedule before it is iterated.
+     * @param cycleDispenser - an optional cycle dispenser, shared by all harnesses of the same activity. When this
+     *                       is provided, cycles are taken from it in chunks rather than from this harness's own range.
+     * @param progressTracker - the progress tracker of the activity, which counts cycles and decides when to stop
+     * @param threadIndex - the index of this harness within its activity, starting at 1
+     */
+    public ActivityHarness(ActivityDispenser ActivityDispenser, ExecutionContext context, ScopedCachingGeneratorSource scopedGeneratorSource, long startCycle, long endCycle, long maxAsync, int interCycleDelay, ActivityContext activityContext, RateLimiter rateLimiter, CycleDispenser cycleDispenser, ProgressTracker progressTracker, int threadIndex) {
         this.activityDispenser = ActivityDispenser;
         this.context = context;
         this.startCycle = startCycle;
@@ -50,12 +64,19 @@ public class ActivityHarness implements Runnable {
         this.interCycleDelay = interCycleDelay;
         this.scopedGeneratorSource = scopedGeneratorSource;
         this.activityContext = activityContext;
+        this.rateLimiter = rateLimiter;
+        this.cycleDispenser = cycleDispenser;
+        this.progressTracker = progressTracker;
+        this.threadProgress = progressTracker.newThreadProgress();
+        this.threadIndex = threadIndex;
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public void run() {
 
+        ThreadIndex.bind(threadIndex, activityDispenser.getActivityName());
+
         Activity activity = activityDispenser.getNewInstance();
         if (activity instanceof ActivityContextAware) {
             ((ActivityContextAware) activity).loadSharedContext(activityContext);
@@ -64,13 +85,35 @@ public class ActivityHarness implements Runnable {
 //        activity.init(activityDispenser.getActivityName(), context, scopedGeneratorSource);
         activity.prepare(startCycle, endCycle, maxAsync);
 
-        Counter cycleCounter = context.getMetrics().counter(name(activity.getClass().getSimpleName(), "cycles"));
-        cycleCounter.inc(startCycle);
+        if (cycleDispenser != null) {
+
+            long chunkStart;
+            while (progressTracker.isRunning() && (chunkStart = cycleDispenser.nextChunk()) < endCycle) {
+                long chunkEnd = Math.min(chunkStart + cycleDispenser.getStride(), endCycle);
+                for (long cycle = chunkStart; cycle < chunkEnd && progressTracker.isRunning(); cycle++) {
+                    long intendedStartNanos = (rateLimiter != null) ? rateLimiter.acquire() : 0L;
+                    threadProgress.inc();
+                    activity.iterate(cycle, intendedStartNanos);
+
+                    if (interCycleDelay > 0 && rateLimiter == null) {
+                        try {
+                            Thread.sleep(interCycleDelay);
+                        } catch (InterruptedException ignored) {
+                        }
+                    }
+                }
+            }
+        } else if (rateLimiter != null) {
 
-        if (interCycleDelay > 0) {
+            for (long cycle = startCycle; cycle < endCycle && progressTracker.isRunning(); cycle++) {
+                long intendedStartNanos = rateLimiter.acquire();
+                threadProgress.inc();
+                activity.iterate(intendedStartNanos);
+            }
+        } else if (interCycleDelay > 0) {
 
-            for (long cycle = startCycle; cycle < endCycle; cycle++) {
-                cycleCounter.inc();
+            for (long cycle = startCycle; cycle < endCycle && progressTracker.isRunning(); cycle++) {
+                threadProgress.inc();
                 activity.iterate();
 
                 try {
@@ -80,25 +123,45 @@ public class ActivityHarness implements Runnable {
                 }
             }
         } else { // Hedge against the try catch performance
-            for (long cycle = startCycle; cycle < endCycle; cycle++) {
-                cycleCounter.inc();
+            for (long cycle = startCycle; cycle < endCycle && progressTracker.isRunning(); cycle++) {
+                threadProgress.inc();
                 activity.iterate();
             }
         }
 
         activity.cleanup();
 
+        ThreadIndex.unbind();
+    }
+
+    /**
+     * Activities which do not override {@link Activity#iterate(long, long)} count their own cycles from the start of
+     * their range, so they can not be given the cycles of a shared {@link CycleDispenser}.
+     * @return true if the activity runs the cycle which the harness gives it
+     */
+    public static boolean runsGivenCycles(Activity activity) {
+        try {
+            return activity.getClass().getMethod("iterate", long.class, long.class).getDeclaringClass() != Activity.class;
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     public String getCycleSummary() {
+        if (cycleDispenser != null) {
+            return "dispensed from " + cycleDispenser;
+        }
         return "(" + startCycle + ".." + endCycle + "], total=" + (endCycle - startCycle);
     }
 
     public String toString() {
         return getClass().getSimpleName()
                 + " activitySource:" + activityDispenser
+                + ", threadIndex:" + threadIndex
                 + ", startCycle:" + startCycle
                 + ", endCycle:" + endCycle
-                + ", maxAsync:" + maxAsync;
+                + ", maxAsync:" + maxAsync
+                + (rateLimiter != null ? ", rateLimiter:" + rateLimiter : "")
+                + (cycleDispenser != null ? ", cycleDispenser:" + cycleDispenser : "");
     }
 }
@@ -0,0 +1,109 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.activity;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A window of in-flight async operations for a single activity thread. The owning thread acquires a permit before
+ * each op is sent, and the permit is released from whichever thread completes the op, usually a driver I/O thread.
+ * Unlike a queue of pending futures, a completion anywhere in the window frees up room for the next op.
+ *
+ * <p>Only the owning thread may wait on the window. Releases may come from any thread.</p>
+ */
+public class AsyncWindow {
+
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+    private volatile int limit;
+    private volatile Thread waiter;
+
+    public AsyncWindow(int limit) {
+        this.limit = Math.max(1, limit);
+    }
+
+    /**
+     * Wait until there is room in the window, then take one permit.
+     */
+    public void acquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current < limit) {
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    return;
+                }
+            } else {
+                park(current);
+            }
+        }
+    }
+
+    /**
+     * Give back one permit, waking the owning thread if it is waiting.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+        Thread toWake = waiter;
+        if (toWake != null) {
+            LockSupport.unpark(toWake);
+        }
+    }
+
+    /**
+     * Wait until every permit has been released.
+     */
+    public void awaitEmpty() {
+        int current;
+        while ((current = inFlight.get()) > 0) {
+            park(current);
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Change the size of the window. Ops already in flight are not affected, but no more are let in until there
+     * is room under the new limit.
+     */
+    public void setLimit(int limit) {
+        int previous = this.limit;
+        this.limit = Math.max(1, limit);
+        if (this.limit > previous) {
+            Thread toWake = waiter;
+            if (toWake != null) {
+                LockSupport.unpark(toWake);
+            }
+        }
+    }
+
+    private void park(int observed) {
+        waiter = Thread.currentThread();
+        // Check again after publishing the waiter, so that a release in between is not missed
+        if (inFlight.get() == observed) {
+            LockSupport.park(this);
+        }
+        waiter = null;
+    }
+}
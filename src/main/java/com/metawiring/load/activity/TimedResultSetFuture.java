@@ -18,9 +18,9 @@
 
 package com.metawiring.load.activity;
 
-import com.codahale.metrics.Timer;
 import com.datastax.driver.core.BoundStatement;
-import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.ResultSet;
+import com.google.common.util.concurrent.ListenableFuture;
 
 /**
  * This is meant to be used internally by activity implementations, not shared in any way.
@@ -29,14 +29,27 @@ import com.datastax.driver.core.ResultSetFuture;
  */
 public class TimedResultSetFuture {
 
-    public ResultSetFuture rsFuture;
+    // The result of the latest try. For a delayed retry, this completes once the retry has been sent and answered.
+    public ListenableFuture<ResultSet> rsFuture;
 
-    // initialize this before you send the first request for this bound statement
-    public Timer.Context timerContext;
+    // System.nanoTime() from just before the first request for this bound statement was sent
+    public long startNanos;
+
+    // System.nanoTime() at which this op was scheduled to start, or 0 if the activity is not paced
+    public long intendedStartNanos;
+
+    // The completion time of the latest try, or null if it is not stamped. Each try gets its own stamp, so a
+    // listener which fires late for an earlier try can not stamp a later one.
+    public CompletionStamp completion;
 
     // The bound statement, if the result is not successful, simply resend it
     public BoundStatement boundStatement;
 
     // Incremented for each executeAsync
     public int tries = 0;
+
+    public static class CompletionStamp {
+        // System.nanoTime() at which the driver completed the try, or 0 if not yet known
+        public volatile long nanos;
+    }
 }
@@ -88,6 +88,6 @@ public class YamlActivityDispenser implements ActivityDispenser<CQLYamlActivity>
 
     @Override
     public String getActivityName() {
-        return null;
+        return actityDef.getName();
     }
 }
@@ -18,6 +18,7 @@
 
 package com.metawiring.load.cli;
 
+import com.metawiring.load.config.ScenarioDef;
 import com.metawiring.load.config.TestClientConfig;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
@@ -37,6 +38,7 @@ public class TestClientCLIOptions {
     OptionSpec<String> host;
     OptionSpec<Boolean> help;
     OptionSpec<String> activities;
+    OptionSpec<String> scenario;
     OptionSpec<Integer> maxAsync;
     OptionSpec<String> graphite;
     OptionSpec<String> metricsPrefix;
@@ -49,6 +51,8 @@ public class TestClientCLIOptions {
     OptionSpec<String> defaultCL;
     OptionSpec<Boolean> splitCycles;
     OptionSpec<Boolean> diagnoseExceptions;
+    OptionSpec<Long> seed;
+    OptionSpec<String> loopback;
 
     {
         parser = new OptionParser();
@@ -83,8 +87,10 @@ public class TestClientCLIOptions {
                 .describedAs("The base prefix to append to all metrics reporter names");
 
         activities = parser.accepts("activity").withRequiredArg().ofType(String.class)
-                .required()
-                .describedAs("Activities to run, format: --activity=name:cycles:threads:asyncs");
+                .describedAs("Activities to run, format: --activity=name:cycles:threads:asyncs[:param=value...]");
+
+        scenario = parser.accepts("scenario").withRequiredArg().ofType(String.class)
+                .describedAs("A scenario yaml file or resource name, with phases of activities to run in order, instead of --activity");
 
         keyspace = parser.accepts("keyspace").withRequiredArg().ofType(String.class)
                 .describedAs("Keyspace to use").defaultsTo("testks");
@@ -113,6 +119,13 @@ public class TestClientCLIOptions {
 
         diagnoseExceptions = parser.accepts("diagnose").withOptionalArg().ofType(Boolean.class)
                 .describedAs("causes verbose exceptions to be thrown instead of retried quietly.").defaultsTo(false);
+
+        seed = parser.accepts("seed").withRequiredArg().ofType(Long.class)
+                .describedAs("the seed for all random generators, to repeat the data of an earlier run");
+
+        loopback = parser.accepts("loopback").withOptionalArg().ofType(String.class)
+                .describedAs("run without a cluster, completing each op at once or after a latency in microseconds"
+                        + " from the given generator, such as Exponential:0:100000:2000");
     }
 
     public TestClientConfig parse(String[] args) {
@@ -139,6 +152,15 @@ public class TestClientCLIOptions {
             System.exit(2);
         }
 
+        if (options.has(activities) == options.has(scenario)) {
+            try {
+                System.out.println("ERROR: Either --activity or --scenario must be given, but not both.");
+                parser.printHelpOn(System.out);
+            } catch (IOException ignored) {
+            }
+            System.exit(2);
+        }
+
         TestClientConfig.Builder builder = TestClientConfig.builder();
         builder.withHost(options.valueOf(host));
         builder.withPort(options.valueOf(port));
@@ -153,6 +175,18 @@ public class TestClientCLIOptions {
         builder.withSplitCycles(options.has(splitCycles));
         builder.withDiagnoseExceptions(options.has(diagnoseExceptions));
 
+        if (options.has(scenario)) {
+            builder.withScenario(ScenarioDef.load(options.valueOf(scenario)));
+        }
+
+        if (options.has(seed)) {
+            builder.withSeed(options.valueOf(seed));
+        }
+
+        if (options.has(loopback)) {
+            builder.withLoopback(options.hasArgument(loopback) ? options.valueOf(loopback) : "0");
+        }
+
         if (options.has(graphite)) {
             builder.withGraphite(options.valueOf(graphite));
         }
@@ -18,32 +18,57 @@
 
 package com.metawiring.load.config;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 /**
  * A definition for an activity.
  */
 public class ActivityDef {
+    private final static Pattern durationPattern = Pattern.compile("^(\\d+)(ms|s|m|h)?$");
+
     private final String name;
 
     private final long startCycle,endCycle;
     private final int threads;
     private int maxAsync = 1000;
     private int interCycleDelay;
+    private final Map<String,String> params;
 
     public ActivityDef(String name, long startCycle, long endCycle, int threads, int maxAsync, int interCycleDelay) {
+        this(name, startCycle, endCycle, threads, maxAsync, interCycleDelay, Collections.<String, String>emptyMap());
+    }
+
+    /**
+     * @param params - named activity parameters, as given in name=value form on the activity definition
+     */
+    public ActivityDef(String name, long startCycle, long endCycle, int threads, int maxAsync, int interCycleDelay, Map<String,String> params) {
         this.name = name;
         this.threads = threads;
         this.maxAsync = maxAsync;
         this.startCycle = startCycle;
         this.endCycle = endCycle;
         this.interCycleDelay = interCycleDelay;
+        this.params = Collections.unmodifiableMap(new LinkedHashMap<>(params));
     }
 
     public String toString() {
+        StringBuilder sb = new StringBuilder();
         if (startCycle==1) {
-            return name + ":" + endCycle + ":" + threads + ":" + maxAsync;
+            sb.append(name + ":" + endCycle + ":" + threads + ":" + maxAsync);
         } else {
-            return name + ":" + startCycle + "-" + endCycle + ":" + threads + ":" + maxAsync;
+            sb.append(name + ":" + startCycle + "-" + endCycle + ":" + threads + ":" + maxAsync);
         }
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            sb.append(":").append(param.getKey()).append("=").append(param.getValue());
+        }
+        return sb.toString();
     }
 
     public String getName() {
@@ -79,4 +104,142 @@ public class ActivityDef {
     public int getInterCycleDelay() {
         return interCycleDelay;
     }
+
+    public Map<String, String> getParams() {
+        return params;
+    }
+
+    public String getParam(String paramName, String defaultValue) {
+        String value = params.get(paramName);
+        return (value != null) ? value : defaultValue;
+    }
+
+    /**
+     * @return the activity-wide target rate in ops/s, or 0.0 if the activity is not rate limited
+     */
+    public double getRate() {
+        return Double.valueOf(getParam("rate", "0"));
+    }
+
+    /**
+     * @return how the async pipeline of each thread is managed, either "fifo" (the default) or "callback"
+     */
+    public String getPipeline() {
+        return getParam("pipeline", "fifo");
+    }
+
+    /**
+     * @return what kind of threads run the activity, either "platform" (the default) or "virtual"
+     */
+    public String getExecutor() {
+        return getParam("executor", "platform");
+    }
+
+    /**
+     * @return the number of cycles each thread takes at a time from a shared cycle dispenser, or 0 if each thread
+     * runs a fixed range of cycles instead
+     */
+    public int getStride() {
+        return Integer.valueOf(getParam("stride", "0"));
+    }
+
+    /**
+     * @return the longest time the activity may run in milliseconds, or 0 if it only ends when its cycles are
+     * used up. The duration param is a number with an optional unit of ms, s, m, or h. Seconds are assumed.
+     */
+    public long getDurationMillis() {
+        return getMillisParam("duration", "0");
+    }
+
+    /**
+     * @param paramName - the name of a param which holds a time span, like 30m or 500ms
+     * @param defaultValue - the value to use if the param is not set
+     * @return the time span in milliseconds
+     */
+    public long getMillisParam(String paramName, String defaultValue) {
+        String duration = getParam(paramName, defaultValue).trim();
+        Matcher matcher = durationPattern.matcher(duration);
+        if (!matcher.matches()) {
+            throw new RuntimeException("Invalid " + paramName + " '" + duration + "', use a number with ms, s, m or h");
+        }
+        long amount = Long.valueOf(matcher.group(1));
+        String unit = (matcher.group(2) != null) ? matcher.group(2) : "s";
+        switch (unit) {
+            case "ms":
+                return amount;
+            case "m":
+                return TimeUnit.MINUTES.toMillis(amount);
+            case "h":
+                return TimeUnit.HOURS.toMillis(amount);
+            default:
+                return TimeUnit.SECONDS.toMillis(amount);
+        }
+    }
+
+    /**
+     * @param activity - activity name in one of the formats:
+     * <UL>
+     *                 <LI>activityClass</LI>
+     *                 <LI>activityClass:cycles</LI>
+     *                 <LI>activityClass:cycles:threads</LI>
+     *                 <LI>activityClass:cycles:threads:maxAsync/LI>
+     *                 <LI>activityClass:cycles:threads:maxAsync:interCycleDelay/LI>
+     * </UL>
+     *                 where cycles may be either M or N..M
+     *                 N implicitly represent 1..M
+     *                 Any of the parts may instead be given in name=value form, like rate=50000. These
+     *                 are not positional, and are passed to the activity def as named parameters.
+     * @return a new activity def
+     */
+    public static ActivityDef parseActivityDef(String activity) {
+        List<String> positional = new ArrayList<>();
+        Map<String,String> params = new LinkedHashMap<>();
+        for (String part : activity.split(":")) {
+            if (part.contains("=")) {
+                String[] param = part.split("=", 2);
+                params.put(param[0].trim(), param[1].trim());
+            } else {
+                positional.add(part);
+            }
+        }
+        String[] parts = positional.toArray(new String[positional.size()]);
+        String aName;
+        String aThreads="1";
+        String aCycles="1";
+        String aMaxSync="1";
+        String aInterCycleDelay="0";
+
+        int interCycleDelay = 0;
+        switch (parts.length) {
+            case 5: aInterCycleDelay = parts[4];
+            case 4: aMaxSync = parts[3];
+            case 3: aThreads = parts[2];
+            case 2: aCycles = parts[1];
+            case 1: aName = parts[0];
+                break;
+            default:
+                throw new RuntimeException("Invalid activity definition: " + activity);
+        }
+        String[] cycleParts = aCycles.split("\\.\\.");
+        String aCyclesMin, aCyclesMax;
+        switch (cycleParts.length) {
+            case 2:
+                aCyclesMin=cycleParts[0];
+                aCyclesMax=cycleParts[1];
+                break;
+            case 1:
+                aCyclesMin="0";
+                aCyclesMax=cycleParts[0];
+                break;
+            default:
+                throw new RuntimeException("Invalid cycles definitions: " + aCycles);
+        }
+        return new ActivityDef(
+                aName,
+                Long.valueOf(aCyclesMin),Long.valueOf(aCyclesMax),
+                Integer.valueOf(aThreads),Integer.valueOf(aMaxSync),
+                Integer.valueOf(aInterCycleDelay),
+                params
+        );
+    }
 }
@@ -0,0 +1,89 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One phase of a scenario. All activities of a phase run at the same time, and the phase ends when they have all
+ * finished. The type of a phase decides what is done with it:
+ * <UL>
+ * <LI>schema - only the schema of each activity is created, and no cycles are run</LI>
+ * <LI>rampup - the activities are run and measured, as a separate set of results</LI>
+ * <LI>warmup - the activities are run, but their metrics are left out of the results</LI>
+ * <LI>main - the activities are run and measured (the default)</LI>
+ * </UL>
+ */
+public class PhaseDef {
+
+    public enum PhaseType {
+        schema,
+        rampup,
+        warmup,
+        main
+    }
+
+    private String name;
+    private PhaseType type = PhaseType.main;
+    private List<String> activities = new ArrayList<>();
+
+    public String getName() {
+        return (name != null) ? name : type.toString();
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public PhaseType getType() {
+        return type;
+    }
+
+    public void setType(PhaseType type) {
+        this.type = type;
+    }
+
+    public List<String> getActivities() {
+        return activities;
+    }
+
+    public void setActivities(List<String> activities) {
+        this.activities = activities;
+    }
+
+    public List<ActivityDef> getActivityDefs() {
+        List<ActivityDef> activityDefs = new ArrayList<>();
+        for (String activity : activities) {
+            activityDefs.add(ActivityDef.parseActivityDef(activity));
+        }
+        return activityDefs;
+    }
+
+    /**
+     * @return true if the metrics of this phase belong in the results
+     */
+    public boolean isMeasured() {
+        return type == PhaseType.rampup || type == PhaseType.main;
+    }
+
+    public String toString() {
+        return getName() + "(" + type + "):" + activities;
+    }
+}
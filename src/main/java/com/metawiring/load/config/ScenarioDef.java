@@ -0,0 +1,108 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A scenario is an ordered list of phases, loaded from YAML like this:
+ * <pre>
+ * phases:
+ *  - type: schema
+ *    activities:
+ *     - write-telemetry
+ *  - type: warmup
+ *    activities:
+ *     - write-telemetry:100000:10:100
+ *  - type: main
+ *    activities:
+ *     - write-telemetry:100000..1100000:50:500
+ *     - read-telemetry:1000000:10:100
+ * </pre>
+ */
+public class ScenarioDef {
+    private final static Logger logger = LoggerFactory.getLogger(ScenarioDef.class);
+
+    private List<PhaseDef> phases = new ArrayList<>();
+
+    public List<PhaseDef> getPhases() {
+        return phases;
+    }
+
+    public void setPhases(List<PhaseDef> phases) {
+        this.phases = phases;
+    }
+
+    /**
+     * Load a scenario from the file system, or failing that, from the class path under scenarios/.
+     * @param scenario - the path or name of the scenario, with or without the .yaml extension
+     * @return the scenario
+     */
+    public static ScenarioDef load(String scenario) {
+        String[] pathVariants = new String[]{scenario, scenario + ".yaml"};
+
+        for (String pathVariant : pathVariants) {
+            File scenarioFile = new File(pathVariant);
+            if (scenarioFile.exists()) {
+                logger.info("Found scenario in filesystem: " + pathVariant);
+                try {
+                    return load(pathVariant, new FileInputStream(scenarioFile));
+                } catch (FileNotFoundException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+        for (String pathVariant : pathVariants) {
+            String resourcePath = "scenarios" + File.separator + pathVariant;
+            InputStream stream = ScenarioDef.class.getClassLoader().getResourceAsStream(resourcePath);
+            if (stream != null) {
+                logger.info("Located scenario in class path: " + resourcePath);
+                return load(resourcePath, stream);
+            }
+        }
+        throw new RuntimeException("Unable to find scenario " + scenario + " in filesystem or class path.");
+    }
+
+    private static ScenarioDef load(String fromPath, InputStream stream) {
+        ScenarioDef scenarioDef;
+        try {
+            scenarioDef = new Yaml().loadAs(stream, ScenarioDef.class);
+        } catch (Exception e) {
+            logger.error("Error loading scenario yaml from " + fromPath, e);
+            throw e;
+        }
+        if (scenarioDef == null || scenarioDef.getPhases().isEmpty()) {
+            throw new RuntimeException("Scenario " + fromPath + " has no phases.");
+        }
+        return scenarioDef;
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + " phases:" + phases;
+    }
+}
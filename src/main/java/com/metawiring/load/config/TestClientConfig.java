@@ -19,6 +19,7 @@
 package com.metawiring.load.config;
 
 import com.datastax.driver.core.ConsistencyLevel;
+import com.metawiring.load.generator.RandomSource;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -42,6 +43,9 @@ public class TestClientConfig {
     public final int defaultReplicationFactor;
     public final boolean splitCycles;
     public final boolean diagnoseExceptions;
+    public final ScenarioDef scenario;
+    public final long seed;
+    public final String loopback;
 
     private TestClientConfig(
             String host, int port,
@@ -58,7 +62,10 @@ public class TestClientConfig {
             int defaultReplicationFactor,
             ConsistencyLevel defaultConsistencyLevel,
             boolean splitCycles,
-            boolean diagnoseExceptions) {
+            boolean diagnoseExceptions,
+            ScenarioDef scenario,
+            long seed,
+            String loopback) {
         this.host = host;
         this.port = port;
         this.activities = new ArrayList<>(activityDefs);
@@ -74,6 +81,9 @@ public class TestClientConfig {
         this.defaultReplicationFactor = defaultReplicationFactor;
         this.splitCycles = splitCycles;
         this.diagnoseExceptions = diagnoseExceptions;
+        this.scenario = scenario;
+        this.seed = seed;
+        this.loopback = loopback;
     }
 
     public static Builder builder() {
@@ -99,6 +109,9 @@ public class TestClientConfig {
         private boolean splitCycles = true;
         private boolean diagnoseExceptions = false;
         private int replicationFactor = 1;
+        private ScenarioDef scenario;
+        private long seed = RandomSource.getRunSeed();
+        private String loopback;
 
         public TestClientConfig build() {
             return new TestClientConfig(
@@ -117,7 +130,10 @@ public class TestClientConfig {
                     defaultReplicationFactor,
                     defaultConsistencyLevel,
                     splitCycles,
-                    diagnoseExceptions);
+                    diagnoseExceptions,
+                    scenario,
+                    seed,
+                    loopback);
         }
 
         public Builder withCredentials(String user, String password) {
@@ -147,59 +163,35 @@ public class TestClientConfig {
         }
 
         /**
-         * @param activity - activity name in one of the formats:
-         * <UL>
-         *                 <LI>activityClass</LI>
-         *                 <LI>activityClass:cycles</LI>
-         *                 <LI>activityClass:cycles:threads</LI>
-         *                 <LI>activityClass:cycles:threads:maxAsync/LI>
-         * </UL>
-         *                 where cycles may be either M or N..M
-         *                 N implicitly represent 1..M
+         * @param activity - activity definition, in the form described by {@link ActivityDef#parseActivityDef(String)}
          * @return builder
          */
         public Builder addActivityDef(String activity) {
-            String[] parts = activity.split(":");
-            String aName;
-            String aThreads="1";
-            String aCycles="1";
-            String aMaxSync="1";
-            String aInterCycleDelay="0";
-
-            int interCycleDelay = 0;
-            switch (parts.length) {
-                case 5: aInterCycleDelay = parts[4];
-                case 4: aMaxSync = parts[3];
-                case 3: aThreads = parts[2];
-                case 2: aCycles = parts[1];
-                case 1: aName = parts[0];
-                    break;
-                default:
-                    throw new RuntimeException("Invalid activity definition: " + activity);
-            }
-            String[] cycleParts = aCycles.split("\\.\\.");
-            String aCyclesMin, aCyclesMax;
-            switch (cycleParts.length) {
-                case 2:
-                    aCyclesMin=cycleParts[0];
-                    aCyclesMax=cycleParts[1];
-                    break;
-                case 1:
-                    aCyclesMin="0";
-                    aCyclesMax=cycleParts[0];
-                    break;
-                default:
-                    throw new RuntimeException("Invalid cycles definitions: " + aCycles);
-            }
-            activityDefs.add(
-                    new ActivityDef(
-                            aName,
-                            Long.valueOf(aCyclesMin),Long.valueOf(aCyclesMax),
-                            Integer.valueOf(aThreads),Integer.valueOf(aMaxSync),
-                            Integer.valueOf(aInterCycleDelay)
-                    )
-            );
+            activityDefs.add(ActivityDef.parseActivityDef(activity));
+            return this;
+        }
+
+        public Builder withScenario(ScenarioDef scenario) {
+            this.scenario = scenario;
+            return this;
+        }
+
+        /**
+         * @param seed - the run seed which all random generators are seeded from
+         * @return builder
+         */
+        public Builder withSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
 
+        /**
+         * @param loopback - the latency generator spec of a loopback session, or "0" for ops which complete at
+         *                 once, or null to connect to the cluster
+         * @return builder
+         */
+        public Builder withLoopback(String loopback) {
+            this.loopback = loopback;
             return this;
         }
 
@@ -19,6 +19,8 @@
 package com.metawiring.load.core;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
 import com.metawiring.load.activities.ActivityContextAware;
 import com.metawiring.load.activities.RuntimeContext;
 import com.metawiring.load.activities.cql.ActivityContext;
@@ -28,13 +30,17 @@ import com.metawiring.load.activity.ActivityDispenserLocators;
 import com.metawiring.load.activity.ActivityDispenser;
 import com.metawiring.load.activity.ActivityHarness;
 import com.metawiring.load.config.ActivityDef;
+import com.metawiring.load.config.PhaseDef;
+import com.metawiring.load.config.ScenarioDef;
 import com.metawiring.load.generator.GeneratorInstantiator;
 import com.metawiring.load.generator.RuntimeScope;
 import com.metawiring.load.generator.ScopedCachingGeneratorSource;
 import com.metawiring.load.generator.ScopedGeneratorCache;
+import org.joda.time.Interval;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -61,17 +67,81 @@ public class ActivityExecutorService {
         context.startup();
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Run all of the configured activities at the same time, until they are all finished.
+     */
     public void execute() {
+        ScopedCachingGeneratorSource processScopedGeneratorCache = createProcessScopedGeneratorCache();
+        executeActivities(context.getConfig().activities, processScopedGeneratorCache.EnterSubScope(RuntimeScope.phase));
+    }
+
+    /**
+     * The test execution, node and process scopes are all shared by everything this client runs, since it runs
+     * one test execution per process.
+     * @return a generator cache at process scope, which phases are entered from
+     */
+    private ScopedCachingGeneratorSource createProcessScopedGeneratorCache() {
+        return new ScopedGeneratorCache(new GeneratorInstantiator(), RuntimeScope.testexecution)
+                .EnterSubScope(RuntimeScope.node)
+                .EnterSubScope(RuntimeScope.process);
+    }
+
+    /**
+     * Run the phases of a scenario in order. Each phase has its own metric registry and its own phase scope for
+     * generators, so that neither metrics nor generator state carry over from one phase to the next. The
+     * metrics of each measured phase are added to the result.
+     * @param scenarioDef - the scenario to run
+     * @param result - the result to add phase metrics to
+     */
+    public void execute(ScenarioDef scenarioDef, Result result) {
+        ScopedCachingGeneratorSource processScopedGeneratorCache = createProcessScopedGeneratorCache();
+
+        for (PhaseDef phaseDef : scenarioDef.getPhases()) {
+            logger.info("starting phase " + phaseDef);
+            context.beginPhase(phaseDef.getName());
+            ScopedCachingGeneratorSource phaseScopedGeneratorCache = processScopedGeneratorCache.EnterSubScope(RuntimeScope.phase);
 
-        ScopedCachingGeneratorSource executionScopedGeneratorCache = new ScopedGeneratorCache(new GeneratorInstantiator(),RuntimeScope.testexecution);
+            if (phaseDef.getType() == PhaseDef.PhaseType.schema) {
+                createSchemas(phaseDef.getActivityDefs(), phaseScopedGeneratorCache);
+            } else {
+                executeActivities(phaseDef.getActivityDefs(), phaseScopedGeneratorCache);
+            }
+
+            Interval phaseInterval = context.getPhaseInterval();
+            MetricRegistry phaseMetrics = context.endPhase();
+            if (phaseDef.isMeasured()) {
+                result.addPhase(phaseDef.getName(), phaseMetrics, phaseInterval);
+            }
+            logger.info("finished phase " + phaseDef.getName() + " in " + phaseInterval.toDurationMillis() + "ms"
+                    + (phaseDef.isMeasured() ? "" : ", metrics discarded"));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void createSchemas(List<ActivityDef> activityDefs, ScopedCachingGeneratorSource parentGeneratorSource) {
+        for (ActivityDef def : activityDefs) {
+            ScopedCachingGeneratorSource activityScopedGeneratorSource = parentGeneratorSource.EnterSubScope(RuntimeScope.activity);
+            Activity activity = activityDispenserFactory.get(def).getNewInstance();
+            if (activity instanceof ActivityContextAware<?>) {
+                Object sharedContext = ((ActivityContextAware) activity).createContextToShare(def, activityScopedGeneratorSource, context);
+                ((ActivityContextAware) activity).loadSharedContext(sharedContext);
+            }
+            logger.info("creating schema for " + def);
+            activity.createSchema();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void executeActivities(List<ActivityDef> activityDefs, ScopedCachingGeneratorSource parentGeneratorSource) {
 
         List<ExecutorService> executorServices = new ArrayList<>();
+        List<ProgressTracker> progressTrackers = new ArrayList<>();
+        List<Thread> rateSearchThreads = new ArrayList<>();
 
-        for (ActivityDef def : context.getConfig().activities) {
+        for (ActivityDef def : activityDefs) {
             logger.info("Resolving activity dispenser for " + def);
 
-            ScopedCachingGeneratorSource activityScopedGeneratorSource = executionScopedGeneratorCache.EnterSubScope(RuntimeScope.activity);
+            ScopedCachingGeneratorSource activityScopedGeneratorSource = parentGeneratorSource.EnterSubScope(RuntimeScope.activity);
 
             ActivityDispenser activityDispenser = activityDispenserFactory.get(def);
 
@@ -82,8 +152,7 @@ public class ActivityExecutorService {
                 ((ActivityContextAware) initialActivity).loadSharedContext(contextToShare); // in case we need to use this for createSchema
             }
 
-            ThreadFactory tf = new IndexedThreadFactory(def.toString());
-            ExecutorService executorService = Executors.newFixedThreadPool(context.getConfig().createSchema ? 1 : def.getThreads(), tf);
+            ExecutorService executorService = createExecutorService(def);
             executorServices.add(executorService);
 
             logger.info("creating shared context for activity " + def.getName());
@@ -91,19 +160,39 @@ public class ActivityExecutorService {
 
             logger.info("started thread pool " + executorService.toString());
 
+            RateLimiter rateLimiter = createRateLimiter(def);
+            ProgressTracker progressTracker = createProgressTracker(def);
+            progressTrackers.add(progressTracker);
+            RateSearch rateSearch = RateSearch.isEnabled(def) ? createRateSearch(def, (ActivityContext) contextToShare, rateLimiter, progressTracker) : null;
+
             long threadMaxAsync = (def.getMaxAsync() / def.getThreads());
-            long[] cycleRanges = getCycleRanges(def.getStartCycle(), def.getEndCycle(), def.getThreads());
-            logger.info("Thread cycle ranges: " + Arrays.toString(cycleRanges));
+            CycleDispenser cycleDispenser = null;
+            long[] cycleRanges = null;
+            if (def.getStride() > 0) {
+                if (!ActivityHarness.runsGivenCycles(initialActivity)) {
+                    throw new RuntimeException("Activity " + def.getName() + " counts its own cycles, so it can not take"
+                            + " cycles from a shared cursor. Run it without stride=.");
+                }
+                cycleDispenser = new CycleDispenser(def.getStartCycle(), def.getEndCycle(), def.getStride());
+                logger.info("Threads take cycles from " + cycleDispenser);
+            } else {
+                cycleRanges = getCycleRanges(def.getStartCycle(), def.getEndCycle(), def.getThreads());
+                logger.info("Thread cycle ranges: " + Arrays.toString(cycleRanges));
+            }
 
+            progressTracker.start();
             for (int tidx = 0; tidx < def.getThreads(); tidx++) {
-                long threadStartCycle = cycleRanges[tidx * 2];
-                long threadEndCycle = cycleRanges[(tidx * 2) + 1];
+                long threadStartCycle = (cycleDispenser != null) ? def.getStartCycle() : cycleRanges[tidx * 2];
+                long threadEndCycle = (cycleDispenser != null) ? def.getEndCycle() : cycleRanges[(tidx * 2) + 1];
 
-                ActivityHarness activityHarness = new ActivityHarness(activityDispenser, context, activityScopedGeneratorSource, threadStartCycle, threadEndCycle, threadMaxAsync, def.getInterCycleDelay(), (ActivityContext) contextToShare);
+                ActivityHarness activityHarness = new ActivityHarness(activityDispenser, context, activityScopedGeneratorSource, threadStartCycle, threadEndCycle, threadMaxAsync, def.getInterCycleDelay(), (ActivityContext) contextToShare, rateLimiter, cycleDispenser, progressTracker, tidx + 1);
                 executorService.execute(activityHarness);
                 logger.info("started activity harness " + tidx + " for " + def + ", cycles: " + activityHarness.getCycleSummary());
             }
 
+            if (rateSearch != null) {
+                rateSearchThreads.add(startRateSearch(def, rateSearch));
+            }
             logger.info("finished scheduling:" + def);
         }
 
@@ -111,18 +200,99 @@ public class ActivityExecutorService {
             executorService.shutdown();
             boolean complete = false;
             while (!complete) {
-                logger.info("session time: " + context.getInterval().toString());
+                for (ProgressTracker progressTracker : progressTrackers) {
+                    logger.info("progress: " + progressTracker.getSummary());
+                }
                 try {
                     complete = executorService.awaitTermination(10000, TimeUnit.MILLISECONDS);
                 } catch (InterruptedException ignored) {
                 }
             }
-            logger.info("session time: " + context.getInterval().toString());
             logger.info("Executor service has completed and shutdown.");
         }
 
-        context.shutdown();
+        for (Thread rateSearchThread : rateSearchThreads) {
+            try {
+                rateSearchThread.join();
+            } catch (InterruptedException ignored) {
+            }
+        }
+    }
 
+    private RateSearch createRateSearch(ActivityDef def, ActivityContext activityContext, RateLimiter rateLimiter, ProgressTracker progressTracker) {
+        SloCounter sloCounter = (activityContext != null) ? activityContext.getSloCounter() : null;
+        if (sloCounter == null) {
+            throw new RuntimeException("Activity " + def.getName() + " does not count ops against its service level,"
+                    + " so it can not be used with a rate search.");
+        }
+        return new RateSearch(def, rateLimiter, progressTracker, sloCounter);
+    }
+
+    private Thread startRateSearch(ActivityDef def, RateSearch rateSearch) {
+        Thread rateSearchThread = new Thread(rateSearch, "ratesearch-" + def.getName());
+        rateSearchThread.setDaemon(true);
+        rateSearchThread.start();
+        logger.info("started rate search for " + def.getName());
+        return rateSearchThread;
+    }
+
+    private ExecutorService createExecutorService(ActivityDef def) {
+        String executor = def.getExecutor();
+        if (executor.equals("virtual") && context.getConfig().createSchema) {
+            logger.info("Creating schema for " + def.getName() + " from a single platform thread.");
+        } else if (executor.equals("virtual")) {
+            ExecutorService virtualExecutorService = newVirtualThreadExecutor(def);
+            if (virtualExecutorService != null) {
+                return virtualExecutorService;
+            }
+            logger.warn("Virtual threads are not supported by this JVM (" + System.getProperty("java.version")
+                    + "), running " + def.getName() + " on platform threads instead.");
+        } else if (!executor.equals("platform")) {
+            throw new RuntimeException("Unknown executor type '" + executor + "', use platform or virtual");
+        }
+        ThreadFactory tf = new IndexedThreadFactory(def.toString());
+        return Executors.newFixedThreadPool(context.getConfig().createSchema ? 1 : def.getThreads(), tf);
+    }
+
+    /**
+     * Virtual threads are looked up reflectively, since this is built for older JVMs which do not have them.
+     * @return an executor which starts a new virtual thread for each harness, or null if they are not available
+     */
+    private ExecutorService newVirtualThreadExecutor(ActivityDef def) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, def.getName() + ":v", 1L);
+            ThreadFactory threadFactory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory);
+        } catch (Exception e) {
+            logger.debug("Unable to create a virtual thread executor", e);
+            return null;
+        }
+    }
+
+    private ProgressTracker createProgressTracker(ActivityDef def) {
+        ProgressTracker progressTracker = new ProgressTracker(def);
+        context.getMetrics().register(name(def.getName(), "cycles"), (Gauge<Long>) progressTracker::getCyclePosition);
+        if (def.getDurationMillis() > 0L) {
+            logger.info("running " + def.getName() + " for at most " + def.getDurationMillis() + "ms");
+        }
+        return progressTracker;
+    }
+
+    private RateLimiter createRateLimiter(ActivityDef def) {
+        double rate = RateSearch.isEnabled(def) ? RateSearch.getStartRate(def) : def.getRate();
+        if (rate <= 0.0D) {
+            return null;
+        }
+        RateLimiter rateLimiter = new RateLimiter(rate);
+        context.getMetrics().register(
+                name(def.getName(), "ratelimit-delay-ms"),
+                (Gauge<Long>) () -> rateLimiter.getScheduleDelayNanos() / 1000000L
+        );
+        logger.info("rate limiting " + def.getName() + " to " + rate + " ops/s across " + def.getThreads() + " threads");
+        return rateLimiter;
     }
 
     private long[] getCycleCounts(long startCycle, long endCycle, int threads) {
@@ -0,0 +1,155 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.core;
+
+import com.metawiring.load.config.ActivityDef;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adjusts the async concurrency of an activity at runtime, by additive increase and multiplicative decrease.
+ * Each interval, the concurrency is raised by a fixed step if the activity met its targets, or cut by a factor if
+ * it did not. The targets are:
+ * <UL>
+ * <LI>targetp99 - the op latency in milliseconds which 99% of ops must be at or under, optional</LI>
+ * <LI>maxerrors - the largest fraction of ops which may fail, default 0.01</LI>
+ * </UL>
+ *
+ * <p>Rather than keeping a latency histogram, this counts the ops which were slower than the target. The p99 is
+ * over the target exactly when more than 1% of ops were. Ops are counted with {@link LongAdder}s, so recording
+ * does not contend between threads.</p>
+ *
+ * <p>There is no control thread. Whichever thread records the first op after an interval has passed does the
+ * adjustment, so the controller stops with the activity.</p>
+ */
+public class ConcurrencyController {
+
+    private final static double slowFractionAllowed = 0.01D;
+
+    private final int threads;
+    private final int minConcurrency;
+    private final int maxConcurrency;
+    private final int step;
+    private final double backoff;
+    private final long targetNanos;
+    private final double maxErrorRatio;
+    private final long intervalNanos;
+
+    private final LongAdder ops = new LongAdder();
+    private final LongAdder slowOps = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicLong nextAdjustNanos;
+
+    private volatile int concurrency;
+
+    public ConcurrencyController(ActivityDef def) {
+        this.threads = def.getThreads();
+        this.minConcurrency = threads;
+        this.maxConcurrency = def.getMaxAsync();
+        this.step = Integer.valueOf(def.getParam("aimdstep", String.valueOf(threads)));
+        this.backoff = Double.valueOf(def.getParam("aimdbackoff", "0.75"));
+        this.targetNanos = TimeUnit.MILLISECONDS.toNanos(Long.valueOf(def.getParam("targetp99", "0")));
+        this.maxErrorRatio = Double.valueOf(def.getParam("maxerrors", "0.01"));
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(Long.valueOf(def.getParam("aimdinterval", "1000")));
+        if (backoff <= 0.0D || backoff >= 1.0D) {
+            throw new RuntimeException("aimdbackoff must be between 0.0 and 1.0, not " + backoff);
+        }
+        this.concurrency = minConcurrency;
+        this.nextAdjustNanos = new AtomicLong(System.nanoTime() + intervalNanos);
+    }
+
+    /**
+     * @return true if the activity def asks for adaptive concurrency
+     */
+    public static boolean isEnabled(ActivityDef def) {
+        return def.getParam("concurrency", "fixed").equals("aimd");
+    }
+
+    /**
+     * Record a completed op.
+     * @param latencyNanos - the service time of the op
+     */
+    public void recordSuccess(long latencyNanos) {
+        ops.increment();
+        if (targetNanos > 0L && latencyNanos > targetNanos) {
+            slowOps.increment();
+        }
+        adjustIfDue();
+    }
+
+    /**
+     * Record a failed try of an op.
+     */
+    public void recordError() {
+        ops.increment();
+        errors.increment();
+        adjustIfDue();
+    }
+
+    private void adjustIfDue() {
+        long now = System.nanoTime();
+        long due = nextAdjustNanos.get();
+        if (now - due < 0L || !nextAdjustNanos.compareAndSet(due, now + intervalNanos)) {
+            return;
+        }
+
+        long intervalOps = ops.sumThenReset();
+        long intervalSlowOps = slowOps.sumThenReset();
+        long intervalErrors = errors.sumThenReset();
+        if (intervalOps == 0L) {
+            return;
+        }
+
+        boolean tooSlow = intervalSlowOps > (intervalOps * slowFractionAllowed);
+        boolean tooManyErrors = intervalErrors > (intervalOps * maxErrorRatio);
+        if (tooSlow || tooManyErrors) {
+            concurrency = Math.max(minConcurrency, (int) (concurrency * backoff));
+        } else {
+            concurrency = Math.min(maxConcurrency, concurrency + step);
+        }
+    }
+
+    /**
+     * @return the async concurrency which the whole activity should currently use
+     */
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * @param threadIndex - the index of the calling thread within the activity, starting at 1
+     * @return this thread's share of the current concurrency, at least 1
+     */
+    public int getThreadLimit(int threadIndex) {
+        int current = concurrency;
+        int share = current / threads;
+        if (((threadIndex - 1) % threads) < (current % threads)) {
+            share++;
+        }
+        return Math.max(1, share);
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + " concurrency:" + concurrency + " of (" + minConcurrency + ".."
+                + maxConcurrency + "), step:" + step + ", backoff:" + backoff
+                + ", targetp99(ns):" + targetNanos + ", maxerrors:" + maxErrorRatio;
+    }
+}
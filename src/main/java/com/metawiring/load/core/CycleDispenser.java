@@ -0,0 +1,88 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.core;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Hands out the cycles of an activity to its threads in chunks, from a single shared cursor. A thread which runs
+ * faster simply takes more chunks, so all threads of an activity finish at about the same time. Each cycle is
+ * handed out exactly once.
+ *
+ * <p>Threads only touch the cursor once per chunk, so a larger stride means less contention. The cursor is padded
+ * to keep it on a cache line of its own.</p>
+ */
+public class CycleDispenser {
+
+    private final static AtomicLongFieldUpdater<CycleDispenser> cursorUpdater =
+            AtomicLongFieldUpdater.newUpdater(CycleDispenser.class, "cursor");
+
+    private final long startCycle, endCycle;
+    private final int stride;
+
+    @SuppressWarnings("unused")
+    private long p1, p2, p3, p4, p5, p6, p7;
+    private volatile long cursor;
+    @SuppressWarnings("unused")
+    private long q1, q2, q3, q4, q5, q6, q7;
+
+    /**
+     * @param startCycle - the first cycle to hand out
+     * @param endCycle - the cycle after the last one to hand out
+     * @param stride - how many cycles to hand out at a time
+     */
+    public CycleDispenser(long startCycle, long endCycle, int stride) {
+        if (stride < 1) {
+            throw new RuntimeException("Cycle dispenser stride must be at least 1, not " + stride);
+        }
+        this.startCycle = startCycle;
+        this.endCycle = endCycle;
+        this.stride = stride;
+        this.cursor = startCycle;
+    }
+
+    /**
+     * Take the next chunk of cycles. The chunk runs from the returned cycle to the lesser of that plus the stride,
+     * and the end cycle.
+     * @return the first cycle of the chunk, or a value of at least {@link #getEndCycle()} if all cycles are taken
+     */
+    public long nextChunk() {
+        if (cursor >= endCycle) {
+            return endCycle;
+        }
+        return cursorUpdater.getAndAdd(this, stride);
+    }
+
+    public long getStartCycle() {
+        return startCycle;
+    }
+
+    public long getEndCycle() {
+        return endCycle;
+    }
+
+    public int getStride() {
+        return stride;
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + " cycles:(" + startCycle + ".." + endCycle + "], stride:" + stride
+                + ", cursor:" + cursor;
+    }
+}
@@ -18,8 +18,14 @@
 
 package com.metawiring.load.core;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricRegistryListener;
 import com.codahale.metrics.ScheduledReporter;
+import com.codahale.metrics.Timer;
 import com.datastax.driver.core.*;
 import com.metawiring.load.config.TestClientConfig;
 import com.metawiring.load.generator.*;
@@ -33,8 +39,12 @@ public class ExecutionContext {
     private TestClientConfig config;
     private Cluster cluster;
     private Session session;
-    private MetricRegistry metrics = new MetricRegistry();
+    private MetricRegistry rootMetrics = new MetricRegistry();
+    private volatile MetricRegistry metrics = rootMetrics;
+    private String phaseName;
+    private long phaseStartedAt;
     private List<ScheduledReporter> reporters = new ArrayList<ScheduledReporter>();
+    private RetryScheduler retryScheduler;
 //    private ScopedCachingGeneratorSource generatorInstanceSource = new ScopedGeneratorCache(new GeneratorInstantiator());
     private long startedAt = System.currentTimeMillis();
     private long endedAt = startedAt;
@@ -49,6 +59,11 @@ public class ExecutionContext {
 
     public void startup() {
 
+        if (config.loopback != null) {
+            session = new LoopbackSession(config.loopback);
+            return;
+        }
+
         Cluster.Builder builder = Cluster.builder()
                 .withTimestampGenerator(ServerSideTimestampGenerator.INSTANCE)
                 .addContactPoint(config.host)
@@ -66,21 +81,85 @@ public class ExecutionContext {
 
     }
 
+    /**
+     * @return the metric registry of the current phase, or the root registry when no phase is running
+     */
     public MetricRegistry getMetrics() {
         return metrics;
     }
 
+    /**
+     * @return the registry which reporters are attached to. The metrics of a running phase are mirrored into this,
+     * under the phase name.
+     */
+    public MetricRegistry getRootMetrics() {
+        return rootMetrics;
+    }
+
+    /**
+     * Start a new phase. Metrics which are created until the phase ends go into a registry of their own, so that
+     * they only cover this phase. While the phase runs, they are also visible in the root registry as
+     * &lt;phase&gt;.&lt;metric&gt;, so that the configured reporters see them.
+     * @param phaseName - the name of the phase, used as the prefix of its metrics in the root registry
+     */
+    public synchronized void beginPhase(String phaseName) {
+        if (this.phaseName != null) {
+            throw new RuntimeException("Phase " + phaseName + " can not begin while phase " + this.phaseName + " is running.");
+        }
+        this.phaseName = phaseName;
+        this.phaseStartedAt = System.currentTimeMillis();
+        this.metrics = new MetricRegistry();
+        this.metrics.addListener(new PrefixingListener(rootMetrics, phaseName));
+    }
+
+    /**
+     * End the current phase, removing its metrics from the root registry.
+     * @return the metrics of the phase which just ended
+     */
+    public synchronized MetricRegistry endPhase() {
+        if (phaseName == null) {
+            throw new RuntimeException("There is no running phase to end.");
+        }
+        String prefix = phaseName + ".";
+        rootMetrics.removeMatching((name, metric) -> name.startsWith(prefix));
+        MetricRegistry phaseMetrics = metrics;
+        metrics = rootMetrics;
+        phaseName = null;
+        return phaseMetrics;
+    }
+
+    /**
+     * @return the interval of the current phase, or of the whole session if no phase is running
+     */
+    public Interval getPhaseInterval() {
+        return (phaseName != null) ? new Interval(phaseStartedAt, System.currentTimeMillis()) : getInterval();
+    }
+
     public Session getSession() {
         return session;
     }
 
+    public synchronized RetryScheduler getRetryScheduler() {
+        if (retryScheduler == null) {
+            retryScheduler = new RetryScheduler();
+        }
+        return retryScheduler;
+    }
+
 //    public GeneratorInstanceSource getGeneratorInstanceSource() {
 //        return generatorInstanceSource;
 //    }
 
     public void shutdown() {
 
-        cluster.close();
+        if (retryScheduler != null) {
+            retryScheduler.shutdown();
+        }
+        if (cluster != null) {
+            cluster.close();
+        } else if (session != null) {
+            session.close();
+        }
         for (ScheduledReporter reporter : reporters) {
             reporter.report();
             reporter.stop();
@@ -94,4 +173,64 @@ public class ExecutionContext {
     public Interval getInterval() {
         return new Interval(startedAt, System.currentTimeMillis());
     }
+
+    private static class PrefixingListener implements MetricRegistryListener {
+        private final MetricRegistry target;
+        private final String prefix;
+
+        private PrefixingListener(MetricRegistry target, String prefix) {
+            this.target = target;
+            this.prefix = prefix;
+        }
+
+        @Override
+        public void onGaugeAdded(String name, Gauge<?> gauge) {
+            target.register(MetricRegistry.name(prefix, name), gauge);
+        }
+
+        @Override
+        public void onGaugeRemoved(String name) {
+            target.remove(MetricRegistry.name(prefix, name));
+        }
+
+        @Override
+        public void onCounterAdded(String name, Counter counter) {
+            target.register(MetricRegistry.name(prefix, name), counter);
+        }
+
+        @Override
+        public void onCounterRemoved(String name) {
+            target.remove(MetricRegistry.name(prefix, name));
+        }
+
+        @Override
+        public void onHistogramAdded(String name, Histogram histogram) {
+            target.register(MetricRegistry.name(prefix, name), histogram);
+        }
+
+        @Override
+        public void onHistogramRemoved(String name) {
+            target.remove(MetricRegistry.name(prefix, name));
+        }
+
+        @Override
+        public void onMeterAdded(String name, Meter meter) {
+            target.register(MetricRegistry.name(prefix, name), meter);
+        }
+
+        @Override
+        public void onMeterRemoved(String name) {
+            target.remove(MetricRegistry.name(prefix, name));
+        }
+
+        @Override
+        public void onTimerAdded(String name, Timer timer) {
+            target.register(MetricRegistry.name(prefix, name), timer);
+        }
+
+        @Override
+        public void onTimerRemoved(String name) {
+            target.remove(MetricRegistry.name(prefix, name));
+        }
+    }
 }
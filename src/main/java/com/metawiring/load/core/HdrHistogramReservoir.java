@@ -0,0 +1,155 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.core;
+
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+import org.HdrHistogram.Recorder;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A reservoir which keeps every value, in an HdrHistogram with three significant digits, instead of a decaying
+ * sample. The tails are exact to that precision at any rate, and the histograms of several clients can be added
+ * together, which the percentiles of samples can not.
+ * <p>
+ * Values are recorded without locks into one of a fixed number of recorders, chosen by thread id, so that threads
+ * seldom share one, and the memory does not grow with the number of threads. Taking a snapshot adds what each
+ * recorder has seen since the last snapshot into a histogram of everything seen so far, so the snapshot covers the
+ * whole life of the reservoir, which is one phase for activity metrics.
+ */
+public class HdrHistogramReservoir implements Reservoir {
+
+    private final static int significantDigits = 3;
+
+    private final Recorder[] recorders = new Recorder[Runtime.getRuntime().availableProcessors()];
+    private final Histogram total = new Histogram(significantDigits);
+    private final Histogram interval = new Histogram(significantDigits);
+
+    public HdrHistogramReservoir() {
+        for (int i = 0; i < recorders.length; i++) {
+            recorders[i] = new Recorder(significantDigits);
+        }
+    }
+
+    @Override
+    public void update(long value) {
+        recorders[(int) (Thread.currentThread().getId() % recorders.length)].recordValue(Math.max(value, 0L));
+    }
+
+    @Override
+    public int size() {
+        return getSnapshot().size();
+    }
+
+    @Override
+    public Snapshot getSnapshot() {
+        return new HdrSnapshot(getHistogram());
+    }
+
+    /**
+     * @return a copy of the histogram of every value recorded so far, which can be added to those of other
+     * reservoirs or other clients
+     */
+    public synchronized Histogram getHistogram() {
+        for (Recorder recorder : recorders) {
+            recorder.getIntervalHistogramInto(interval);
+            total.add(interval);
+        }
+        return total.copy();
+    }
+
+    /**
+     * A snapshot which reads percentiles from a histogram. The percentiles which the reporters do not ask for, such
+     * as the 99.99th, are available from {@link #getValue(double)}.
+     */
+    public static class HdrSnapshot extends Snapshot {
+        private final Histogram histogram;
+
+        private HdrSnapshot(Histogram histogram) {
+            this.histogram = histogram;
+        }
+
+        @Override
+        public double getValue(double quantile) {
+            return histogram.getValueAtPercentile(quantile * 100.0D);
+        }
+
+        /**
+         * @return one value for each distinct bucket of the histogram, since there may be more values than fit in
+         * an array
+         */
+        @Override
+        public long[] getValues() {
+            long[] values = new long[countBuckets()];
+            int idx = 0;
+            for (HistogramIterationValue value : histogram.recordedValues()) {
+                values[idx++] = histogram.highestEquivalentValue(value.getValueIteratedTo());
+            }
+            return values;
+        }
+
+        private int countBuckets() {
+            int buckets = 0;
+            for (HistogramIterationValue ignored : histogram.recordedValues()) {
+                buckets++;
+            }
+            return buckets;
+        }
+
+        @Override
+        public int size() {
+            return (int) Math.min(histogram.getTotalCount(), Integer.MAX_VALUE);
+        }
+
+        @Override
+        public long getMax() {
+            return (histogram.getTotalCount() > 0L) ? histogram.getMaxValue() : 0L;
+        }
+
+        @Override
+        public double getMean() {
+            return (histogram.getTotalCount() > 0L) ? histogram.getMean() : 0.0D;
+        }
+
+        @Override
+        public long getMin() {
+            return (histogram.getTotalCount() > 0L) ? histogram.getMinValue() : 0L;
+        }
+
+        @Override
+        public double getStdDev() {
+            return (histogram.getTotalCount() > 0L) ? histogram.getStdDeviation() : 0.0D;
+        }
+
+        @Override
+        public void dump(OutputStream output) {
+            try (PrintWriter out = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+                for (long value : getValues()) {
+                    out.printf("%d%n", value);
+                }
+            }
+        }
+    }
+}
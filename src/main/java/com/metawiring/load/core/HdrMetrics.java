@@ -0,0 +1,47 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.core;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+/**
+ * Timers and histograms backed by an {@link HdrHistogramReservoir}, for the metrics which are updated for every op.
+ * Like {@link MetricRegistry#timer(String)}, these return the metric which is already registered under the name, if
+ * there is one, so that the threads and contexts of an activity share it.
+ */
+public class HdrMetrics {
+
+    public static Timer timer(MetricRegistry registry, String name) {
+        try {
+            return registry.register(name, new Timer(new HdrHistogramReservoir()));
+        } catch (IllegalArgumentException alreadyRegistered) {
+            return registry.timer(name);
+        }
+    }
+
+    public static Histogram histogram(MetricRegistry registry, String name) {
+        try {
+            return registry.register(name, new Histogram(new HdrHistogramReservoir()));
+        } catch (IllegalArgumentException alreadyRegistered) {
+            return registry.histogram(name);
+        }
+    }
+}
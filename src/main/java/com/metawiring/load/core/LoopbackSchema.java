@@ -0,0 +1,292 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.core;
+
+import com.datastax.driver.core.DataType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The tables which have been created through a stand-in for a cluster, so that the bind variables of later statements
+ * can be typed like the columns they are for, without a server to describe them.
+ */
+public class LoopbackSchema {
+    private final static Logger logger = LoggerFactory.getLogger(LoopbackSchema.class);
+
+    /**
+     * The type of a variable which can not be matched to a column of a known table
+     */
+    public final static DataType UNKNOWN = DataType.custom("loopback.unknown");
+
+    private final static Pattern createTable = Pattern.compile(
+            "(?is)\\s*create\\s+(?:table|columnfamily)\\s+(?:if\\s+not\\s+exists\\s+)?([\\w.\"]+)\\s*\\(");
+    private final static Pattern insert = Pattern.compile(
+            "(?is)^\\s*insert\\s+into\\s+([\\w.\"]+)\\s*\\(([^)]*)\\)\\s*values\\s*\\((.*?)\\).*$");
+    private final static Pattern tableName = Pattern.compile(
+            "(?is).*?\\b(?:from|update|into)\\s+([\\w.\"]+).*");
+    private final static Pattern columnBeforeMarker = Pattern.compile(
+            "(?is).*?([\\w\"]+)\\s*(?:=|<=|>=|<|>|\\bin|\\bcontains(?:\\s+key)?)\\s*\\(?\\s*$");
+    private final static Pattern lastWord = Pattern.compile("(?is).*?(\\w+)\\s*$");
+    private final static Pattern select = Pattern.compile("(?is)^\\s*select\\b.*");
+    private final static Pattern schemaChange = Pattern.compile(
+            "(?is)\\s*(?:(?:--|//)[^\\n]*\\n\\s*|/\\*.*?\\*/\\s*)*(?:create|alter|drop)\\b");
+
+    private final Map<String, Map<String, DataType>> tables = new ConcurrentHashMap<>();
+
+    /**
+     * Remember the column types of a table, if the statement creates one
+     * @param query - any statement
+     */
+    public void learn(String query) {
+        if (!isSchemaChange(query)) {
+            return;
+        }
+        String cql = stripComments(query);
+        Matcher matcher = createTable.matcher(cql);
+        if (!matcher.lookingAt()) {
+            return;
+        }
+        int depth = 1, end = matcher.end();
+        for (; end < cql.length() && depth > 0; end++) {
+            char c = cql.charAt(end);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            }
+        }
+        String body = cql.substring(matcher.end(), (depth == 0) ? end - 1 : end);
+
+        Map<String, DataType> columns = new LinkedHashMap<>();
+        for (String definition : splitTopLevel(body)) {
+            String[] parts = definition.trim().split("\\s+", 2);
+            if (parts.length < 2 || parts[0].equalsIgnoreCase("primary")) {
+                continue;
+            }
+            String type = parts[1].replaceAll("(?i)\\s+(static|primary\\s+key)\\s*$", "").trim();
+            columns.put(unquote(parts[0]), parseType(type));
+        }
+        String qualifiedTable = matcher.group(1);
+        tables.put(qualifiedTable.toLowerCase(), columns);
+        tables.put(qualifiedTable.substring(qualifiedTable.indexOf('.') + 1).toLowerCase(), columns);
+        logger.debug("Learned table " + qualifiedTable + " " + columns);
+    }
+
+    /**
+     * @param query - any statement
+     * @return true if the statement creates, alters or drops something. This only looks at the start of the
+     * statement, so it is cheap enough to call for every op.
+     */
+    public static boolean isSchemaChange(String query) {
+        return schemaChange.matcher(query).lookingAt();
+    }
+
+    /**
+     * @param query - a statement with bind markers
+     * @return the table of the statement, and the name and type of each of its variables
+     */
+    public Variables variablesOf(String query) {
+        String cql = stripComments(query);
+        String qualifiedTable = null;
+        List<String> names = new ArrayList<>();
+
+        Matcher insertMatcher = insert.matcher(cql);
+        if (insertMatcher.matches()) {
+            qualifiedTable = insertMatcher.group(1);
+            String[] columns = insertMatcher.group(2).split(",");
+            String[] values = insertMatcher.group(3).split(",");
+            for (int idx = 0; idx < values.length && idx < columns.length; idx++) {
+                if (values[idx].trim().equals("?")) {
+                    names.add(unquote(columns[idx]));
+                }
+            }
+            names.addAll(namesBeforeMarkers(cql.substring(insertMatcher.end(3))));
+        } else {
+            Matcher tableMatcher = tableName.matcher(cql);
+            if (tableMatcher.matches()) {
+                qualifiedTable = tableMatcher.group(1);
+            }
+            names.addAll(namesBeforeMarkers(cql));
+        }
+
+        Map<String, DataType> columns = null;
+        if (qualifiedTable != null && !names.isEmpty()) {
+            columns = tables.get(qualifiedTable.toLowerCase());
+            if (columns == null) {
+                logger.warn("Table " + qualifiedTable + " has not been created here, so the types of its columns are"
+                        + " not known. Use --createschema to create it.");
+            }
+        }
+        List<DataType> types = new ArrayList<>(names.size());
+        for (String name : names) {
+            types.add(typeOf(name, columns));
+        }
+
+        String keyspace = null, table = qualifiedTable;
+        if (qualifiedTable != null && qualifiedTable.contains(".")) {
+            keyspace = unquote(qualifiedTable.substring(0, qualifiedTable.indexOf('.')));
+            table = qualifiedTable.substring(qualifiedTable.indexOf('.') + 1);
+        }
+        return new Variables(keyspace, (table != null) ? unquote(table) : null, columns != null,
+                select.matcher(cql).matches(), names, types);
+    }
+
+    /**
+     * The bind variables of a statement
+     */
+    public static class Variables {
+        public final String keyspace;
+        public final String table;
+        public final boolean knownTable;
+        public final boolean select;
+        public final List<String> names;
+        public final List<DataType> types;
+
+        private Variables(String keyspace, String table, boolean knownTable, boolean select,
+                          List<String> names, List<DataType> types) {
+            this.keyspace = keyspace;
+            this.table = table;
+            this.knownTable = knownTable;
+            this.select = select;
+            this.names = Collections.unmodifiableList(names);
+            this.types = Collections.unmodifiableList(types);
+        }
+    }
+
+    private static DataType typeOf(String name, Map<String, DataType> columns) {
+        if (name.equalsIgnoreCase("limit") || name.equalsIgnoreCase("ttl")) {
+            return DataType.cint();
+        }
+        if (name.equalsIgnoreCase("timestamp")) {
+            return DataType.bigint();
+        }
+        if (columns != null && columns.containsKey(name)) {
+            return columns.get(name);
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * @return the name of the column or clause which each bind marker is for, in order
+     */
+    private static List<String> namesBeforeMarkers(String cql) {
+        List<String> names = new ArrayList<>();
+        int from = 0;
+        int marker;
+        while ((marker = cql.indexOf('?', from)) >= 0) {
+            String before = cql.substring(0, marker);
+            Matcher column = columnBeforeMarker.matcher(before);
+            Matcher word = lastWord.matcher(before);
+            if (column.matches()) {
+                names.add(unquote(column.group(1)));
+            } else if (word.matches()) {
+                names.add(word.group(1));
+            } else {
+                names.add("var" + names.size());
+            }
+            from = marker + 1;
+        }
+        return names;
+    }
+
+    private static DataType parseType(String type) {
+        String normalized = type.trim().toLowerCase();
+        if (normalized.startsWith("frozen<") && normalized.endsWith(">")) {
+            return parseType(normalized.substring(7, normalized.length() - 1));
+        }
+        int open = normalized.indexOf('<');
+        if (open > 0 && normalized.endsWith(">")) {
+            List<String> args = splitTopLevel(normalized.substring(open + 1, normalized.length() - 1));
+            switch (normalized.substring(0, open).trim()) {
+                case "list":
+                    return DataType.list(parseType(args.get(0)));
+                case "set":
+                    return DataType.set(parseType(args.get(0)));
+                case "map":
+                    return DataType.map(parseType(args.get(0)), parseType(args.get(1)));
+                default:
+                    return UNKNOWN;
+            }
+        }
+        switch (normalized) {
+            case "ascii": return DataType.ascii();
+            case "bigint": return DataType.bigint();
+            case "blob": return DataType.blob();
+            case "boolean": return DataType.cboolean();
+            case "counter": return DataType.counter();
+            case "date": return DataType.date();
+            case "decimal": return DataType.decimal();
+            case "double": return DataType.cdouble();
+            case "float": return DataType.cfloat();
+            case "inet": return DataType.inet();
+            case "int": return DataType.cint();
+            case "smallint": return DataType.smallint();
+            case "text": return DataType.text();
+            case "time": return DataType.time();
+            case "timestamp": return DataType.timestamp();
+            case "timeuuid": return DataType.timeuuid();
+            case "tinyint": return DataType.tinyint();
+            case "uuid": return DataType.uuid();
+            case "varchar": return DataType.varchar();
+            case "varint": return DataType.varint();
+            default: return UNKNOWN;
+        }
+    }
+
+    private static List<String> splitTopLevel(String list) {
+        List<String> parts = new ArrayList<>();
+        int depth = 0, start = 0;
+        for (int idx = 0; idx < list.length(); idx++) {
+            char c = list.charAt(idx);
+            if (c == '(' || c == '<') {
+                depth++;
+            } else if (c == ')' || c == '>') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                parts.add(list.substring(start, idx));
+                start = idx + 1;
+            }
+        }
+        if (!list.substring(start).trim().isEmpty()) {
+            parts.add(list.substring(start));
+        }
+        return parts;
+    }
+
+    private static String stripComments(String cql) {
+        return cql.replaceAll("(?s)/\\*.*?\\*/", " ").replaceAll("(//|--)[^\\n]*", " ").trim();
+    }
+
+    private static String unquote(String name) {
+        String trimmed = name.trim();
+        if (trimmed.startsWith("\"") && trimmed.endsWith("\"") && trimmed.length() > 1) {
+            return trimmed.substring(1, trimmed.length() - 1);
+        }
+        return trimmed.toLowerCase();
+    }
+}
@@ -0,0 +1,402 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.core;
+
+import com.datastax.driver.core.*;
+import com.datastax.driver.core.exceptions.InvalidTypeException;
+import com.google.common.reflect.TypeToken;
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.metawiring.load.generator.Generator;
+import com.metawiring.load.generator.GeneratorInstantiator;
+import com.metawiring.load.generator.LongGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A session which is not connected to anything, for finding the most ops per second which the client itself can
+ * drive. Statements are prepared locally, and each op completes at once, or after a synthetic latency. Everything
+ * else, generating values, binding them, the async pipeline and the metrics, works as it does against a cluster.
+ * <p>
+ * Tables which are created through the session are remembered, so that the variables of later statements are typed
+ * like the table's columns. Variables which can not be matched to a known column take any value.
+ * <p>
+ * The session adds as little as it can to each op. Whether a prepared statement changes the schema is decided when
+ * it is prepared, and latencies are drawn from a random cycle of the calling thread, so ops share no counter. Ops
+ * with a latency are completed by one single threaded scheduler per calling thread, up to one per core, so that
+ * threads do not contend on one delay queue. Each scheduler still takes a lock to queue an op, and a thread switch to
+ * complete it, so with a latency, the schedulers rather than the client may set the most ops per second. Measure the
+ * client's own ceiling with ops which complete at once.
+ */
+public class LoopbackSession implements Session {
+    private final static Logger logger = LoggerFactory.getLogger(LoopbackSession.class);
+
+    private final CodecRegistry codecRegistry = new CodecRegistry().register(new AnyValueCodec());
+    private final LoopbackSchema schema = new LoopbackSchema();
+    private final LongGenerator latencyMicros;
+    private final ScheduledThreadPoolExecutor[] completers;
+    private volatile boolean closed;
+
+    /**
+     * @param latencySpec a generator spec for the latency of each op in microseconds, such as
+     *                    Exponential:0:100000:2000, or null or 0 for ops which complete at once
+     */
+    public LoopbackSession(String latencySpec) {
+        if (latencySpec == null || latencySpec.isEmpty() || latencySpec.equals("0")) {
+            this.latencyMicros = null;
+            this.completers = null;
+            logger.info("Loopback session completes each op at once");
+        } else {
+            Generator<?> generator = new GeneratorInstantiator().getGenerator(latencySpec);
+            if (!(generator instanceof LongGenerator)) {
+                throw new RuntimeException("The loopback latency must be a long generator, not " + generator);
+            }
+            this.latencyMicros = (LongGenerator) generator;
+            this.completers = new ScheduledThreadPoolExecutor[Runtime.getRuntime().availableProcessors()];
+            for (int idx = 0; idx < completers.length; idx++) {
+                String threadName = "loopback-completer-" + (idx + 1);
+                completers[idx] = new ScheduledThreadPoolExecutor(1, runnable -> {
+                    Thread thread = new Thread(runnable, threadName);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            logger.info("Loopback session completes each op after " + latencySpec + " microseconds");
+        }
+    }
+
+    @Override
+    public PreparedStatement prepare(String query) {
+        LoopbackSchema.Variables variables = schema.variablesOf(query);
+        Object[] namesAndTypes = new Object[variables.names.size() * 2];
+        for (int idx = 0; idx < variables.names.size(); idx++) {
+            namesAndTypes[idx * 2] = variables.names.get(idx);
+            namesAndTypes[idx * 2 + 1] = variables.types.get(idx);
+        }
+        if (LoopbackSchema.isSchemaChange(query)) {
+            return new SchemaChangeStatement(codecRegistry, variables.keyspace, variables.table, query, namesAndTypes);
+        }
+        return new LoopbackPreparedStatement(codecRegistry, variables.keyspace, variables.table, query, namesAndTypes);
+    }
+
+    @Override
+    public PreparedStatement prepare(RegularStatement statement) {
+        return prepare(statement.getQueryString());
+    }
+
+    @Override
+    public ListenableFuture<PreparedStatement> prepareAsync(String query) {
+        return Futures.immediateFuture(prepare(query));
+    }
+
+    @Override
+    public ListenableFuture<PreparedStatement> prepareAsync(RegularStatement statement) {
+        return Futures.immediateFuture(prepare(statement));
+    }
+
+    @Override
+    public ResultSetFuture executeAsync(Statement statement) {
+        if (closed) {
+            throw new IllegalStateException("Could not send request, session is closed");
+        }
+        if (statement instanceof RegularStatement) {
+            schema.learn(((RegularStatement) statement).getQueryString());
+        } else if (statement instanceof BoundStatement
+                && ((BoundStatement) statement).preparedStatement() instanceof SchemaChangeStatement) {
+            schema.learn(((BoundStatement) statement).preparedStatement().getQueryString());
+        }
+
+        LoopbackResultSetFuture future = new LoopbackResultSetFuture();
+        if (latencyMicros == null) {
+            future.complete();
+        } else {
+            long micros = latencyMicros.applyAsLong(ThreadLocalRandom.current().nextLong(Long.MAX_VALUE));
+            if (micros <= 0L) {
+                future.complete();
+            } else {
+                completerOfThisThread().schedule(future::complete, micros, TimeUnit.MICROSECONDS);
+            }
+        }
+        return future;
+    }
+
+    @Override
+    public ResultSetFuture executeAsync(String query) {
+        return executeAsync(new SimpleStatement(query));
+    }
+
+    @Override
+    public ResultSetFuture executeAsync(String query, Object... values) {
+        return executeAsync(new SimpleStatement(query, values));
+    }
+
+    @Override
+    public ResultSetFuture executeAsync(String query, Map<String, Object> values) {
+        return executeAsync(new SimpleStatement(query, values));
+    }
+
+    @Override
+    public ResultSet execute(Statement statement) {
+        return executeAsync(statement).getUninterruptibly();
+    }
+
+    @Override
+    public ResultSet execute(String query) {
+        return execute(new SimpleStatement(query));
+    }
+
+    @Override
+    public ResultSet execute(String query, Object... values) {
+        return execute(new SimpleStatement(query, values));
+    }
+
+    @Override
+    public ResultSet execute(String query, Map<String, Object> values) {
+        return execute(new SimpleStatement(query, values));
+    }
+
+    @Override
+    public String getLoggedKeyspace() {
+        return null;
+    }
+
+    @Override
+    public Session init() {
+        return this;
+    }
+
+    @Override
+    public ListenableFuture<Session> initAsync() {
+        return Futures.immediateFuture(this);
+    }
+
+    @Override
+    public CloseFuture closeAsync() {
+        close();
+        return LoopbackPreparedStatement.closedFuture();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (completers != null) {
+            for (ScheduledThreadPoolExecutor completer : completers) {
+                completer.shutdown();
+            }
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * @return null, since there is no cluster behind this session
+     */
+    @Override
+    public Cluster getCluster() {
+        return null;
+    }
+
+    @Override
+    public State getState() {
+        return new State() {
+            @Override
+            public Session getSession() {
+                return LoopbackSession.this;
+            }
+
+            @Override
+            public Collection<Host> getConnectedHosts() {
+                return Collections.emptyList();
+            }
+
+            @Override
+            public int getOpenConnections(Host host) {
+                return 0;
+            }
+
+            @Override
+            public int getTrashedConnections(Host host) {
+                return 0;
+            }
+
+            @Override
+            public int getInFlightQueries(Host host) {
+                return 0;
+            }
+        };
+    }
+
+    private ScheduledThreadPoolExecutor completerOfThisThread() {
+        return completers[(int) (Thread.currentThread().getId() % completers.length)];
+    }
+
+    /**
+     * A prepared statement which changes the schema, so that the session learns from it each time it is executed.
+     */
+    private final static class SchemaChangeStatement extends LoopbackPreparedStatement {
+        private SchemaChangeStatement(CodecRegistry codecRegistry, String keyspace, String table, String query, Object... namesAndTypes) {
+            super(codecRegistry, keyspace, table, query, namesAndTypes);
+        }
+    }
+
+    private final static class LoopbackResultSetFuture extends AbstractFuture<ResultSet> implements ResultSetFuture {
+
+        private void complete() {
+            set(EmptyResultSet.INSTANCE);
+        }
+
+        @Override
+        public ResultSet getUninterruptibly() {
+            try {
+                return Uninterruptibles.getUninterruptibly(this);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+
+        @Override
+        public ResultSet getUninterruptibly(long timeout, TimeUnit unit) throws TimeoutException {
+            try {
+                return Uninterruptibles.getUninterruptibly(this, timeout, unit);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+    }
+
+    private final static class EmptyResultSet implements ResultSet {
+        private final static EmptyResultSet INSTANCE = new EmptyResultSet();
+
+        @Override
+        public ColumnDefinitions getColumnDefinitions() {
+            return null;
+        }
+
+        @Override
+        public boolean isExhausted() {
+            return true;
+        }
+
+        @Override
+        public Row one() {
+            return null;
+        }
+
+        @Override
+        public List<Row> all() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Iterator<Row> iterator() {
+            return Collections.emptyIterator();
+        }
+
+        @Override
+        public int getAvailableWithoutFetching() {
+            return 0;
+        }
+
+        @Override
+        public boolean isFullyFetched() {
+            return true;
+        }
+
+        @Override
+        public ListenableFuture<ResultSet> fetchMoreResults() {
+            return Futures.immediateFuture((ResultSet) this);
+        }
+
+        @Override
+        public ExecutionInfo getExecutionInfo() {
+            return null;
+        }
+
+        @Override
+        public List<ExecutionInfo> getAllExecutionInfo() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean wasApplied() {
+            return true;
+        }
+    }
+
+    /**
+     * Serializes a value of any type into a variable of unknown type, with the codec for the value's own type.
+     */
+    private final static class AnyValueCodec extends TypeCodec<Object> {
+
+        private AnyValueCodec() {
+            super(LoopbackSchema.UNKNOWN, Object.class);
+        }
+
+        @Override
+        public boolean accepts(TypeToken javaType) {
+            return true;
+        }
+
+        @Override
+        public boolean accepts(Object value) {
+            return true;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public ByteBuffer serialize(Object value, ProtocolVersion protocolVersion) throws InvalidTypeException {
+            if (value == null) {
+                return null;
+            }
+            return CodecRegistry.DEFAULT_INSTANCE.codecFor(value).serialize(value, protocolVersion);
+        }
+
+        @Override
+        public Object deserialize(ByteBuffer bytes, ProtocolVersion protocolVersion) throws InvalidTypeException {
+            return bytes;
+        }
+
+        @Override
+        public Object parse(String value) throws InvalidTypeException {
+            return value;
+        }
+
+        @Override
+        public String format(Object value) throws InvalidTypeException {
+            return String.valueOf(value);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.core;
+
+import com.metawiring.load.config.ActivityDef;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Tracks the progress of one activity, and decides when it should stop. Each harness thread counts its own
+ * cycles in a {@link ThreadProgress} which only it writes to, so counting a cycle never contends with other
+ * threads. The counts are only summed up when progress is read.
+ *
+ * <p>An activity runs until its cycles are used up, or until its duration has passed, or until it is stopped,
+ * whichever comes first.</p>
+ */
+public class ProgressTracker {
+
+    private final ActivityDef def;
+    private final long durationNanos;
+    private final List<ThreadProgress> threadProgresses = new CopyOnWriteArrayList<>();
+
+    private volatile boolean stopped = false;
+    private volatile long startedNanos = 0L;
+    private volatile long deadlineNanos = 0L;
+
+    // For interval rates, only touched by the reporting thread
+    private long lastReportNanos = 0L;
+    private long lastReportCycles = 0L;
+
+    public ProgressTracker(ActivityDef def) {
+        this.def = def;
+        this.durationNanos = TimeUnit.MILLISECONDS.toNanos(def.getDurationMillis());
+    }
+
+    /**
+     * Start the clock for this activity's duration, if it has one.
+     */
+    public void start() {
+        startedNanos = System.nanoTime();
+        lastReportNanos = startedNanos;
+        if (durationNanos > 0L) {
+            deadlineNanos = startedNanos + durationNanos;
+        }
+    }
+
+    /**
+     * Ask all harnesses of this activity to stop after their current cycle.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * @return true if the harnesses of this activity should keep running cycles
+     */
+    public boolean isRunning() {
+        return !stopped && (deadlineNanos == 0L || (System.nanoTime() - deadlineNanos) < 0L);
+    }
+
+    public ThreadProgress newThreadProgress() {
+        ThreadProgress threadProgress = new ThreadProgress();
+        threadProgresses.add(threadProgress);
+        return threadProgress;
+    }
+
+    public ActivityDef getActivityDef() {
+        return def;
+    }
+
+    public long getCompletedCycles() {
+        long completed = 0L;
+        for (ThreadProgress threadProgress : threadProgresses) {
+            completed += threadProgress.cycles;
+        }
+        return completed;
+    }
+
+    /**
+     * @return the cycle position of the activity, between its start cycle and end cycle
+     */
+    public long getCyclePosition() {
+        return def.getStartCycle() + getCompletedCycles();
+    }
+
+    /**
+     * @return a one line summary of cycles completed, the rate since the last summary, and the estimated time
+     * remaining. This keeps the interval between calls, so it should only be called from one reporting thread.
+     */
+    public synchronized String getSummary() {
+        long now = System.nanoTime();
+        long completed = getCompletedCycles();
+        long total = def.getTotalCycles();
+
+        double intervalSeconds = (double) (now - lastReportNanos) / 1000000000D;
+        double rate = (intervalSeconds > 0.0D) ? (completed - lastReportCycles) / intervalSeconds : 0.0D;
+        lastReportNanos = now;
+        lastReportCycles = completed;
+
+        long etaSeconds = -1L;
+        if (rate > 0.0D) {
+            etaSeconds = (long) ((total - completed) / rate);
+        }
+        if (deadlineNanos != 0L) {
+            long untilDeadline = Math.max(0L, TimeUnit.NANOSECONDS.toSeconds(deadlineNanos - now));
+            etaSeconds = (etaSeconds < 0L) ? untilDeadline : Math.min(etaSeconds, untilDeadline);
+        }
+
+        return def.getName() + ": " + completed + "/" + total + " cycles ("
+                + String.format("%.1f", (total > 0L) ? (100.0D * completed / total) : 100.0D) + "%), "
+                + String.format("%.1f", rate) + " cycles/s, "
+                + "elapsed " + formatSeconds(TimeUnit.NANOSECONDS.toSeconds(now - startedNanos)) + ", "
+                + "ETA " + ((etaSeconds < 0L) ? "unknown" : formatSeconds(etaSeconds))
+                + (stopped ? ", stopping" : "");
+    }
+
+    private static String formatSeconds(long seconds) {
+        return String.format("%02d:%02d:%02d", seconds / 3600, (seconds % 3600) / 60, seconds % 60);
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + " " + def.getName() + " completed:" + getCompletedCycles()
+                + (durationNanos > 0L ? ", duration(ms):" + TimeUnit.NANOSECONDS.toMillis(durationNanos) : "");
+    }
+
+    /**
+     * The cycle count of a single harness thread. Only the owning thread increments it, so it does not need an
+     * atomic add, and an ordered store is enough for readers to see it soon after.
+     */
+    public static class ThreadProgress {
+
+        private final static AtomicLongFieldUpdater<ThreadProgress> cyclesUpdater =
+                AtomicLongFieldUpdater.newUpdater(ThreadProgress.class, "cycles");
+
+        @SuppressWarnings("unused")
+        private long p1, p2, p3, p4, p5, p6, p7;
+        private volatile long cycles;
+        @SuppressWarnings("unused")
+        private long q1, q2, q3, q4, q5, q6, q7;
+
+        public void inc() {
+            cyclesUpdater.lazySet(this, cycles + 1);
+        }
+
+        public long getCycles() {
+            return cycles;
+        }
+    }
+}
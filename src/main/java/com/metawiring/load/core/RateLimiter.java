@@ -0,0 +1,118 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An activity-wide rate limiter which is shared by all harness threads of an activity.
+ *
+ * <p>Rather than counting tokens, this keeps a single schedule of when the next op is meant to start. Each call
+ * to {@link #acquire()} claims the next slot on the schedule with one atomic add, and then waits in the calling
+ * thread until that time arrives. There is no lock on this path, and the schedule is never reset, so a thread
+ * which wakes up late does not cause the rate to drift. The next caller simply finds its slot already past and
+ * proceeds immediately.</p>
+ *
+ * <p>The schedule is kept in picoseconds from the first acquire so that fractional nanosecond intervals at very
+ * high rates do not get truncated away.</p>
+ */
+public class RateLimiter {
+
+    private final AtomicLong schedulePicos = new AtomicLong(0L);
+    private final AtomicLong baseNanos = new AtomicLong(0L);
+    private volatile long picosPerOp;
+    private volatile double rate;
+
+    /**
+     * @param rate - ops per second, across all threads which share this rate limiter
+     */
+    public RateLimiter(double rate) {
+        setRate(rate);
+    }
+
+    public void setRate(double rate) {
+        if (rate <= 0.0D) {
+            throw new RuntimeException("Rate limiters must have a positive rate, not " + rate);
+        }
+        this.rate = rate;
+        this.picosPerOp = (long) (1_000_000_000_000D / rate);
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    /**
+     * Claim the next slot in the schedule, and wait until it is time to use it.
+     * @return the System.nanoTime() value at which the claimed op was scheduled to start
+     */
+    public long acquire() {
+        long base = getBaseNanos();
+        long scheduledNanos = base + (schedulePicos.getAndAdd(picosPerOp) / 1000L);
+
+        long waitNanos;
+        while ((waitNanos = scheduledNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(waitNanos);
+        }
+        return scheduledNanos;
+    }
+
+    /**
+     * Move the schedule forward to now, if it is behind, so that ops which were missed are not made up for with a
+     * burst. Ops which are already scheduled for later are not affected.
+     */
+    public void skipBacklog() {
+        long base = getBaseNanos();
+        long nowPicos = (System.nanoTime() - base) * 1000L;
+        long scheduled;
+        while ((scheduled = schedulePicos.get()) < nowPicos) {
+            if (schedulePicos.compareAndSet(scheduled, nowPicos)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return how far behind schedule the limiter is in nanoseconds, or 0 if it is on or ahead of schedule
+     */
+    public long getScheduleDelayNanos() {
+        long base = baseNanos.get();
+        if (base == 0L) {
+            return 0L;
+        }
+        long nextScheduledNanos = base + (schedulePicos.get() / 1000L);
+        return Math.max(0L, System.nanoTime() - nextScheduledNanos);
+    }
+
+    private long getBaseNanos() {
+        long base = baseNanos.get();
+        if (base == 0L) {
+            // The schedule starts with the first op, not with construction, so that activity startup
+            // time does not show up as a burst of catch-up ops.
+            baseNanos.compareAndSet(0L, System.nanoTime());
+            base = baseNanos.get();
+        }
+        return base;
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + " rate:" + rate + ", delay(ns):" + getScheduleDelayNanos();
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.core;
+
+import com.metawiring.load.config.ActivityDef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Finds the highest op rate at which an activity still meets its service level, by running it at a series of
+ * rates. At each step, the rate limiter is set to the step's rate, the activity is given the settle time to
+ * adjust, and then it is measured over the window. A step passes when:
+ * <UL>
+ * <LI>the achieved rate is at least 95% of the step's rate</LI>
+ * <LI>no more than 1% of ops were slower than targetp99, if it is given</LI>
+ * <LI>the fraction of failed tries is at most maxerrors</LI>
+ * </UL>
+ *
+ * <p>In exponential mode, the rate starts at searchstart and doubles until a step fails. In binary mode, the
+ * search starts halfway up to searchmax. Both then halve the gap between the highest passing rate and the lowest
+ * failing rate, until it is within the precision. When the search is done, the per-step table and the result are
+ * logged, and the activity is stopped.</p>
+ */
+public class RateSearch implements Runnable {
+    private final static Logger logger = LoggerFactory.getLogger(RateSearch.class);
+
+    public enum Mode {
+        exponential,
+        binary
+    }
+
+    private final static double minAchievedRatio = 0.95D;
+    private final static double maxSlowRatio = 0.01D;
+    private final static int maxSteps = 30;
+
+    private final ActivityDef def;
+    private final RateLimiter rateLimiter;
+    private final ProgressTracker progressTracker;
+    private final SloCounter sloCounter;
+    private final Mode mode;
+    private final double searchMax;
+    private final double precision;
+    private final double maxErrorRatio;
+    private final long settleNanos;
+    private final long windowNanos;
+    private final List<Step> steps = new ArrayList<>();
+    private volatile double maxPassingRate = 0.0D;
+
+    public RateSearch(ActivityDef def, RateLimiter rateLimiter, ProgressTracker progressTracker, SloCounter sloCounter) {
+        this.def = def;
+        this.rateLimiter = rateLimiter;
+        this.progressTracker = progressTracker;
+        this.sloCounter = sloCounter;
+        this.mode = Mode.valueOf(def.getParam("search", "exponential"));
+        this.searchMax = Double.valueOf(def.getParam("searchmax", "0"));
+        this.precision = Double.valueOf(def.getParam("precision", "0.05"));
+        this.maxErrorRatio = Double.valueOf(def.getParam("maxerrors", "0.01"));
+        this.settleNanos = TimeUnit.MILLISECONDS.toNanos(def.getMillisParam("settle", "10s"));
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(def.getMillisParam("window", "30s"));
+        if (mode == Mode.binary && searchMax <= 0.0D) {
+            throw new RuntimeException("A binary rate search needs searchmax=<ops/s> as its upper bound.");
+        }
+    }
+
+    public static boolean isEnabled(ActivityDef def) {
+        return !def.getParam("search", "none").equals("none");
+    }
+
+    /**
+     * @return the rate of the first step of the search
+     */
+    public static double getStartRate(ActivityDef def) {
+        if (def.getParam("search", "none").equals(Mode.binary.toString())) {
+            return Double.valueOf(def.getParam("searchmax", "0")) / 2.0D;
+        }
+        return Double.valueOf(def.getParam("searchstart", "1000"));
+    }
+
+    @Override
+    public void run() {
+        try {
+            search();
+        } finally {
+            logger.info(getReport());
+            progressTracker.stop();
+        }
+    }
+
+    private void search() {
+        double highestPass = 0.0D;
+        double lowestFail = Double.POSITIVE_INFINITY;
+        double rate = getStartRate(def);
+
+        while (steps.size() < maxSteps) {
+            Step step = measure(rate);
+            if (step == null) {
+                logger.warn("Rate search for " + def.getName() + " ended early, because the activity stopped.");
+                return;
+            }
+            steps.add(step);
+            logger.info("rate search step: " + step);
+
+            if (step.passed) {
+                highestPass = rate;
+                maxPassingRate = rate;
+            } else {
+                lowestFail = rate;
+            }
+
+            if (Double.isInfinite(lowestFail)) {
+                if (searchMax > 0.0D && highestPass >= searchMax) {
+                    return;
+                }
+                rate = (searchMax > 0.0D) ? Math.min(rate * 2.0D, searchMax) : rate * 2.0D;
+            } else {
+                if ((lowestFail - highestPass) <= (lowestFail * precision)) {
+                    return;
+                }
+                rate = (highestPass + lowestFail) / 2.0D;
+            }
+        }
+    }
+
+    /**
+     * Run the activity at the given rate for the settle time and then the measurement window.
+     * @return the measured step, or null if the activity stopped before the step was done
+     */
+    protected Step measure(double rate) {
+        rateLimiter.setRate(rate);
+        rateLimiter.skipBacklog();
+        if (!sleepWhileRunning(settleNanos)) {
+            return null;
+        }
+
+        sloCounter.snapshotAndReset();
+        long windowStart = System.nanoTime();
+        if (!sleepWhileRunning(windowNanos)) {
+            return null;
+        }
+        SloCounter.Snapshot snapshot = sloCounter.snapshotAndReset();
+        double seconds = (double) (System.nanoTime() - windowStart) / 1000000000D;
+
+        double achieved = snapshot.getOps() / seconds;
+        boolean passed = achieved >= (rate * minAchievedRatio)
+                && snapshot.getSlowRatio() <= maxSlowRatio
+                && snapshot.getErrorRatio() <= maxErrorRatio;
+        return new Step(steps.size() + 1, rate, achieved, snapshot.getOps(), snapshot.getSlowRatio(), snapshot.getErrorRatio(), passed);
+    }
+
+    private boolean sleepWhileRunning(long nanos) {
+        long until = System.nanoTime() + nanos;
+        long remaining;
+        while ((remaining = until - System.nanoTime()) > 0L) {
+            if (!progressTracker.isRunning()) {
+                return false;
+            }
+            LockSupport.parkNanos(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(100)));
+        }
+        return progressTracker.isRunning();
+    }
+
+    /**
+     * @return the highest rate which passed, or 0 if none did
+     */
+    public double getMaxPassingRate() {
+        return maxPassingRate;
+    }
+
+    public String getReport() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("rate search for ").append(def.getName()).append(" (").append(mode).append("):\n");
+        sb.append(String.format("%5s %12s %12s %12s %9s %9s  %s%n", "step", "rate", "achieved", "ops", "slow%", "errors%", "result"));
+        for (Step step : steps) {
+            sb.append(String.format("%5d %12.1f %12.1f %12d %9.3f %9.3f  %s%n",
+                    step.number, step.rate, step.achieved, step.ops,
+                    step.slowRatio * 100.0D, step.errorRatio * 100.0D, step.passed ? "pass" : "FAIL"));
+        }
+        sb.append("max rate meeting the criteria: ")
+                .append(maxPassingRate > 0.0D ? String.format("%.1f ops/s", maxPassingRate) : "none");
+        return sb.toString();
+    }
+
+    protected static class Step {
+        private final int number;
+        private final double rate;
+        private final double achieved;
+        private final long ops;
+        private final double slowRatio;
+        private final double errorRatio;
+        private final boolean passed;
+
+        protected Step(int number, double rate, double achieved, long ops, double slowRatio, double errorRatio, boolean passed) {
+            this.number = number;
+            this.rate = rate;
+            this.achieved = achieved;
+            this.ops = ops;
+            this.slowRatio = slowRatio;
+            this.errorRatio = errorRatio;
+            this.passed = passed;
+        }
+
+        public String toString() {
+            return "step " + number + " rate:" + String.format("%.1f", rate)
+                    + ", achieved:" + String.format("%.1f", achieved)
+                    + ", ops:" + ops
+                    + ", slow:" + String.format("%.3f%%", slowRatio * 100.0D)
+                    + ", errors:" + String.format("%.3f%%", errorRatio * 100.0D)
+                    + (passed ? ", pass" : ", FAIL");
+        }
+    }
+}
@@ -39,10 +39,19 @@ public class ReadyStatement {
         this.startCycle = startCycle;
     }
 
+    /**
+     * Bind the values for the cycle after the last one bound, starting at the start cycle.
+     * Use {@link #bind(long)} when the cycle is known.
+     */
     public BoundStatement bind() {
-        Object[] all = generatorBindingList.getAll();
-        BoundStatement bound = preparedStatement.bind(all);
-        return bound;
+        return generatorBindingList.bindAll(preparedStatement.bind());
+    }
+
+    /**
+     * Bind the values for the given cycle.
+     */
+    public BoundStatement bind(long cycle) {
+        return generatorBindingList.bindAll(preparedStatement.bind(), cycle);
     }
 
     public void addBinding(String varname, String generatorName) {
@@ -23,6 +23,7 @@ import com.datastax.driver.core.Session;
 import com.metawiring.load.config.StatementDef;
 import com.metawiring.load.config.TestClientConfig;
 import com.metawiring.load.generator.ScopedCachingGeneratorSource;
+import com.metawiring.load.generator.ScopedGeneratorCache;
 
 import java.util.Optional;
 
@@ -50,7 +51,8 @@ public class ReadyStatementTemplate {
     /**
      * This is expected to be called within the runtime scope of the user. Specifically, any ThreadLocal or other
      * such behaviors should be honored, so wait to call this until you are in the thread that will use it, as there
-     * is a thread scope for generators.
+     * is a thread scope for generators. Each binding is seeded by its name, so bindings with the same generator spec
+     * do not generate the same values, while bindings of the same name in other statements do.
      * @return a ReadyStatement for this thread.
      */
     public ReadyStatement bindGenerators(long startCycle) {
@@ -58,7 +60,7 @@ public class ReadyStatementTemplate {
         for (String bindName : statementDef.getBindNamesExcept("table", "keyspace", "cl", "rf")) {
             Optional<String> genName = Optional.of(statementDef.bindings.get(bindName));
             genName.orElseThrow(() -> new RuntimeException("generator binding referenced, but not defined:" + bindName));
-            readyStatement.addBinding(bindName,genName.get());
+            readyStatement.addBinding(bindName, ScopedGeneratorCache.seededSpec(genName.get(), bindName));
         }
 
         return readyStatement;
@@ -20,24 +20,87 @@ package com.metawiring.load.core;
 
 import com.codahale.metrics.ConsoleReporter;
 import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import org.joda.time.Interval;
 
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 public class Result {
     private ExecutionContext context;
+    private List<PhaseResult> phaseResults = new ArrayList<>();
 
     public Result(ExecutionContext context) {
         this.context = context;
     }
 
+    /**
+     * Add the metrics of a measured scenario phase. When there are phase results, each phase is reported on its
+     * own, in place of the session-wide metrics.
+     */
+    public void addPhase(String phaseName, MetricRegistry phaseMetrics, Interval interval) {
+        phaseResults.add(new PhaseResult(phaseName, phaseMetrics, interval));
+    }
+
     public void reportTo(PrintStream out) {
-        ConsoleReporter consoleReporter = ConsoleReporter.forRegistry(context.getMetrics())
+        if (phaseResults.isEmpty()) {
+            report(context.getMetrics(), out);
+            return;
+        }
+        for (PhaseResult phaseResult : phaseResults) {
+            out.println("phase: " + phaseResult.phaseName + ", interval: " + phaseResult.interval
+                    + " (" + phaseResult.interval.toDurationMillis() + "ms)");
+            report(phaseResult.metrics, out);
+        }
+    }
+
+    private void report(MetricRegistry metrics, PrintStream out) {
+        ConsoleReporter consoleReporter = ConsoleReporter.forRegistry(metrics)
                 .convertDurationsTo(TimeUnit.MILLISECONDS)
                 .convertRatesTo(TimeUnit.SECONDS)
                 .filter(MetricFilter.ALL)
                 .outputTo(out)
                 .build();
         consoleReporter.report();
+        reportTails(metrics, out);
+    }
+
+    /**
+     * Report the percentiles beyond the 99.9th, for the timers which keep every value
+     */
+    private void reportTails(MetricRegistry metrics, PrintStream out) {
+        boolean first = true;
+        for (Map.Entry<String, Timer> entry : metrics.getTimers().entrySet()) {
+            Snapshot snapshot = entry.getValue().getSnapshot();
+            if (!(snapshot instanceof HdrHistogramReservoir.HdrSnapshot)) {
+                continue;
+            }
+            if (first) {
+                out.println("-- Timer tails (milliseconds) --------------------------------------------------");
+                first = false;
+            }
+            out.printf("%s%n", entry.getKey());
+            out.printf("             99.9%% <= %2.2f%n", snapshot.getValue(0.999D) / 1000000.0D);
+            out.printf("            99.99%% <= %2.2f%n", snapshot.getValue(0.9999D) / 1000000.0D);
+            out.printf("           99.999%% <= %2.2f%n", snapshot.getValue(0.99999D) / 1000000.0D);
+            out.printf("                max = %2.2f%n%n", snapshot.getMax() / 1000000.0D);
+        }
+    }
+
+    private static class PhaseResult {
+        private final String phaseName;
+        private final MetricRegistry metrics;
+        private final Interval interval;
+
+        private PhaseResult(String phaseName, MetricRegistry metrics, Interval interval) {
+            this.phaseName = phaseName;
+            this.metrics = metrics;
+            this.interval = interval;
+        }
     }
 }
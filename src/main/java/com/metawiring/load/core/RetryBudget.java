@@ -0,0 +1,96 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A retry budget which is shared by all threads of an activity. Each first attempt of an op deposits a fraction of
+ * a retry into the budget, and each retry withdraws a whole one. When the budget is empty, failed ops are given up
+ * on rather than retried, so that retries can only add a bounded fraction of load to a cluster which is already
+ * failing requests.
+ *
+ * <p>The balance is capped, so a long run of successful ops can only bank a limited burst of retries. The budget
+ * starts full, so the first errors of an activity can still be retried.</p>
+ */
+public class RetryBudget {
+
+    // Balances are kept in thousandths of a retry, so that small ratios are not rounded away
+    private final static long retryCost = 1000L;
+
+    private final AtomicLong balance;
+    private final long depositAmount;
+    private final long maxBalance;
+    private final double ratio;
+
+    /**
+     * @param ratio - the number of retries allowed per op, over the long run
+     * @param maxRetries - the largest burst of retries which can be banked
+     */
+    public RetryBudget(double ratio, int maxRetries) {
+        if (ratio < 0.0D) {
+            throw new RuntimeException("Retry budget ratios can not be negative, not " + ratio);
+        }
+        this.ratio = ratio;
+        this.depositAmount = (long) (ratio * retryCost);
+        this.maxBalance = maxRetries * retryCost;
+        this.balance = new AtomicLong(maxBalance);
+    }
+
+    /**
+     * Called once for each op which is sent for the first time.
+     */
+    public void deposit() {
+        while (true) {
+            long current = balance.get();
+            if (current >= maxBalance) {
+                return;
+            }
+            if (balance.compareAndSet(current, Math.min(maxBalance, current + depositAmount))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return true if a retry may be sent, having been paid for from the budget
+     */
+    public boolean tryWithdraw() {
+        while (true) {
+            long current = balance.get();
+            if (current < retryCost) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - retryCost)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return the number of retries which could be sent right now
+     */
+    public double getBalance() {
+        return (double) balance.get() / retryCost;
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + " ratio:" + ratio + ", balance:" + getBalance();
+    }
+}
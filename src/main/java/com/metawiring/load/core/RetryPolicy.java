@@ -0,0 +1,85 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.core;
+
+import com.metawiring.load.config.ActivityDef;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The retry settings of an activity, as given by its activity parameters:
+ * <UL>
+ * <LI>retries - the most times a failed op is retried, default 9</LI>
+ * <LI>retrydelay - the delay before the first retry in milliseconds, doubled for each retry after it, default 100</LI>
+ * <LI>retrymaxdelay - the longest delay between retries in milliseconds, default 5000</LI>
+ * <LI>jitter - the fraction of each delay which is randomized, between 0.0 and 1.0, default 0.5</LI>
+ * <LI>retrybudget - the number of retries allowed per op over the long run, default 0.2</LI>
+ * </UL>
+ */
+public class RetryPolicy {
+
+    private final static int budgetBurst = 100;
+
+    private final int maxRetries;
+    private final long baseDelayNanos;
+    private final long maxDelayNanos;
+    private final double jitter;
+    private final RetryBudget retryBudget;
+
+    public RetryPolicy(ActivityDef def) {
+        this.maxRetries = Integer.valueOf(def.getParam("retries", "9"));
+        this.baseDelayNanos = TimeUnit.MILLISECONDS.toNanos(Long.valueOf(def.getParam("retrydelay", "100")));
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Long.valueOf(def.getParam("retrymaxdelay", "5000")));
+        this.jitter = Double.valueOf(def.getParam("jitter", "0.5"));
+        if (jitter < 0.0D || jitter > 1.0D) {
+            throw new RuntimeException("jitter must be between 0.0 and 1.0, not " + jitter);
+        }
+        this.retryBudget = new RetryBudget(Double.valueOf(def.getParam("retrybudget", "0.2")), budgetBurst);
+    }
+
+    /**
+     * @return the maximum number of tries for an op, including the first one
+     */
+    public int getTriesLimit() {
+        return maxRetries + 1;
+    }
+
+    public RetryBudget getRetryBudget() {
+        return retryBudget;
+    }
+
+    /**
+     * @param tries - the number of times the op has already been sent
+     * @return how long to wait before sending it again, in nanoseconds
+     */
+    public long getDelayNanos(int tries) {
+        int shift = Math.min(Math.max(tries - 1, 0), 30);
+        long delayNanos = (baseDelayNanos > (maxDelayNanos >> shift)) ? maxDelayNanos : baseDelayNanos << shift;
+        if (jitter > 0.0D) {
+            delayNanos -= (long) (delayNanos * jitter * ThreadLocalRandom.current().nextDouble());
+        }
+        return delayNanos;
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + " retries:" + maxRetries + ", delay(ns):" + baseDelayNanos
+                + ", maxdelay(ns):" + maxDelayNanos + ", jitter:" + jitter + ", " + retryBudget;
+    }
+}
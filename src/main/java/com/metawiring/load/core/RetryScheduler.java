@@ -0,0 +1,51 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.core;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A timer wheel for delayed retries, shared by all activities of an execution context. Retries are sent from the
+ * single timer thread, so scheduled tasks must only submit async requests and never block.
+ */
+public class RetryScheduler {
+
+    private final Timer timer;
+
+    public RetryScheduler() {
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "retry-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        };
+        timer = new HashedWheelTimer(threadFactory, 10L, TimeUnit.MILLISECONDS);
+    }
+
+    public void schedule(Runnable task, long delay, TimeUnit unit) {
+        timer.newTimeout(timeout -> task.run(), delay, unit);
+    }
+
+    public void shutdown() {
+        timer.stop();
+    }
+}
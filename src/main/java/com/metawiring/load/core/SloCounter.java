@@ -0,0 +1,96 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.core;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts completed ops, the ops which were slower than a latency target, and errors, over an interval which the
+ * reader controls. This answers "did the p99 meet the target" exactly, without keeping a histogram: the p99 is
+ * over the target exactly when more than 1% of ops are.
+ *
+ * <p>This is not a metric, since the registry only takes the metric types which its reporters know. The activity
+ * context holds it, and hands it to the rate search.</p>
+ */
+public class SloCounter {
+
+    private final long targetNanos;
+    private final LongAdder ops = new LongAdder();
+    private final LongAdder slowOps = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * @param targetNanos - the latency target, or 0 to not count slow ops
+     */
+    public SloCounter(long targetNanos) {
+        this.targetNanos = targetNanos;
+    }
+
+    public void recordSuccess(long latencyNanos) {
+        ops.increment();
+        if (targetNanos > 0L && latencyNanos > targetNanos) {
+            slowOps.increment();
+        }
+    }
+
+    public void recordError() {
+        errors.increment();
+    }
+
+    public long getTargetNanos() {
+        return targetNanos;
+    }
+
+    /**
+     * @return the counts since the last call, starting a new interval
+     */
+    public Snapshot snapshotAndReset() {
+        return new Snapshot(ops.sumThenReset(), slowOps.sumThenReset(), errors.sumThenReset());
+    }
+
+    public static class Snapshot {
+        private final long ops;
+        private final long slowOps;
+        private final long errors;
+
+        public Snapshot(long ops, long slowOps, long errors) {
+            this.ops = ops;
+            this.slowOps = slowOps;
+            this.errors = errors;
+        }
+
+        public long getOps() {
+            return ops;
+        }
+
+        /**
+         * @return the fraction of ops which were slower than the target
+         */
+        public double getSlowRatio() {
+            return (ops > 0L) ? (double) slowOps / ops : 0.0D;
+        }
+
+        /**
+         * @return errors as a fraction of all tries, failed or not
+         */
+        public double getErrorRatio() {
+            return (ops + errors > 0L) ? (double) errors / (ops + errors) : 0.0D;
+        }
+    }
+}
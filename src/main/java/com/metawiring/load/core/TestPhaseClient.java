@@ -21,6 +21,7 @@ package com.metawiring.load.core;
 import com.codahale.metrics.MetricRegistry;
 import com.metawiring.load.cli.TestClientCLIOptions;
 import com.metawiring.load.config.TestClientConfig;
+import com.metawiring.load.generator.RandomSource;
 import org.slf4j.Logger;
 
 import java.util.concurrent.Callable;
@@ -39,10 +40,12 @@ public class TestPhaseClient implements Callable<Result> {
     @Override
     public Result call() throws Exception {
 
-        MetricRegistry metrics = context.getMetrics();
+        MetricRegistry metrics = context.getRootMetrics();
         MetricReporters reporters = MetricReporters.getInstance();
         TestClientConfig config = context.getConfig();
 
+        RandomSource.setRunSeed(config.seed);
+        logger.info("Random generators are seeded from " + config.seed + ", use --seed=" + config.seed + " to repeat this data");
 
         ActivityExecutorService executorService = new ActivityExecutorService();
         logger.info("Executing main client logic");
@@ -51,7 +54,9 @@ public class TestPhaseClient implements Callable<Result> {
         // TODO: Carve the metrics wiring out into something that is easier to manage and integrate. It puts too much noise here.
 
         // Registries come before reporters
-        reporters.addRegistry("driver",context.getSession().getCluster().getMetrics().getRegistry());
+        if (context.getSession().getCluster() != null) {
+            reporters.addRegistry("driver",context.getSession().getCluster().getMetrics().getRegistry());
+        }
         reporters.addRegistry("testclient",metrics);
         reporters.addLogger();
         if (config.graphiteHost != null && !config.graphiteHost.isEmpty()) {
@@ -62,9 +67,13 @@ public class TestPhaseClient implements Callable<Result> {
         }
         reporters.start();
 
-        executorService.execute();
-        logger.info("Finished executing main client logic");
         Result result = new Result(context);
+        if (config.scenario != null) {
+            executorService.execute(config.scenario, result);
+        } else {
+            executorService.execute();
+        }
+        logger.info("Finished executing main client logic");
         context.shutdown();
 
         reporters.report().stop();
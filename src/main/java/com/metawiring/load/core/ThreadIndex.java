@@ -0,0 +1,74 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.core;
+
+/**
+ * The index and metric name of the activity thread which is running on the current thread. This is bound by the
+ * activity harness when it starts, so it works the same for pooled platform threads and for virtual threads,
+ * without needing the current thread to be of any particular type.
+ */
+public class ThreadIndex {
+
+    private final static ThreadLocal<ThreadIndex> current = new ThreadLocal<>();
+
+    private final int threadIndex;
+    private String metricName;
+
+    private ThreadIndex(int threadIndex, String metricName) {
+        this.threadIndex = threadIndex;
+        this.metricName = metricName;
+    }
+
+    public static void bind(int threadIndex, String metricName) {
+        current.set(new ThreadIndex(threadIndex, metricName));
+    }
+
+    public static void unbind() {
+        current.remove();
+    }
+
+    /**
+     * @return the thread index which is bound to the current thread
+     * @throws RuntimeException if the current thread is not running an activity
+     */
+    public static ThreadIndex get() {
+        ThreadIndex threadIndex = current.get();
+        if (threadIndex == null) {
+            throw new RuntimeException("No thread index is bound to thread " + Thread.currentThread().getName()
+                    + ". Thread indexes are only available within activity threads.");
+        }
+        return threadIndex;
+    }
+
+    public int getThreadIndex() {
+        return threadIndex;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+
+    public void setMetricName(String metricName) {
+        this.metricName = metricName;
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + " index:" + threadIndex + ", metricName:" + metricName;
+    }
+}
@@ -18,32 +18,24 @@
 
 package com.metawiring.load.generator;
 
-import com.metawiring.load.generators.*;
-
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Caches one generator per generator spec. Lookups of a cached generator do not lock.
+ */
 public class CachingGeneratorSourceImpl implements GeneratorInstanceSource {
 
-    private GeneratorInstanceSource generatorInstantiator;
-    private Map<String,Generator<?>> generators = new HashMap<>();
+    private final GeneratorInstanceSource generatorInstantiator;
+    private final ConcurrentHashMap<String,Generator<?>> generators = new ConcurrentHashMap<>();
 
     public CachingGeneratorSourceImpl(GeneratorInstanceSource generatorInstantiator) {
         this.generatorInstantiator = generatorInstantiator;
     }
 
     public Generator getGenerator(String name) {
-        Generator generator = generators.get(name);
-
-        // extra code here avoids mandatory locking for reads
+        Generator<?> generator = generators.get(name);
         if (generator==null) {
-            synchronized(this) {
-                generator = generators.get(name);
-                if(generator==null) {
-                    generator = generatorInstantiator.getGenerator(name);
-                    generators.put(name,generator);
-                }
-            }
+            generator = generators.computeIfAbsent(name, generatorInstantiator::getGenerator);
         }
         return generator;
     }
@@ -0,0 +1,77 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.generator;
+
+import org.apache.commons.lang3.reflect.ConstructorUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+
+/**
+ * A generator factory for one generator spec, which has already been resolved to a class and a constructor. The
+ * spec's arguments are bound into a method handle for the constructor, so each new generator costs about as much
+ * as calling the constructor directly. Instances are immutable, so they may be shared between threads.
+ */
+public class CompiledGeneratorFactory<T> implements GeneratorFactory<T> {
+
+    private final String generatorSpec;
+    private final MethodHandle constructor;
+
+    public CompiledGeneratorFactory(String generatorSpec, Class<? extends Generator> generatorClass, Object[] generatorArgs) {
+        this.generatorSpec = generatorSpec;
+
+        Class<?>[] argTypes = new Class<?>[generatorArgs.length];
+        for (int idx = 0; idx < generatorArgs.length; idx++) {
+            argTypes[idx] = generatorArgs[idx].getClass();
+        }
+        Constructor<? extends Generator> matching = ConstructorUtils.getMatchingAccessibleConstructor(generatorClass, argTypes);
+        if (matching == null) {
+            throw new RuntimeException("No constructor of " + generatorClass.getCanonicalName() + " takes "
+                    + Arrays.toString(argTypes) + " for generator spec " + generatorSpec);
+        }
+
+        try {
+            MethodHandle handle = MethodHandles.publicLookup().unreflectConstructor(matching);
+            handle = MethodHandles.insertArguments(handle.asType(handle.type().generic()), 0, generatorArgs);
+            this.constructor = handle.asType(MethodType.methodType(Generator.class));
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Generator<T> getGenerator() {
+        try {
+            return (Generator<T>) constructor.invokeExact();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new RuntimeException("Unable to create generator for spec " + generatorSpec, t);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return generatorSpec;
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.generator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A read-only text corpus, which is loaded once per JVM and shared by all of the generators which use it.
+ *
+ * <p>Files are memory-mapped, in segments of up to 1GB, so a corpus can be many GB without using any heap.
+ * Corpora which are only available inside a jar are read onto the heap instead. A corpus is found by its name
+ * in this order: as a file, as a file under data/, as a classpath resource, and as a classpath resource under
+ * data/.</p>
+ *
+ * <p>Extracts are taken by byte offset, and are moved inward to the nearest UTF-8 character boundaries, so that
+ * they are always valid UTF-8 when the corpus is. They can be had as Strings, or as read-only slices of the
+ * corpus which are not copied, to be bound as pre-encoded text values. The lines of the corpus are indexed the
+ * first time they are needed, which takes 8 bytes of heap per line.</p>
+ */
+public class Corpus {
+    private final static Logger logger = LoggerFactory.getLogger(Corpus.class);
+
+    private final static int segmentBits = 30;
+    private final static int segmentMask = (1 << segmentBits) - 1;
+    private final static ConcurrentHashMap<String, Corpus> corpora = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final ByteBuffer[] segments;
+    private final long size;
+    private volatile long[] lineOffsets;
+
+    private Corpus(String name, ByteBuffer[] segments, long size) {
+        this.name = name;
+        this.segments = segments;
+        this.size = size;
+    }
+
+    /**
+     * @param name - the name of the corpus file or resource
+     * @return the shared corpus for the name, which is loaded on first use
+     */
+    public static Corpus get(String name) {
+        return corpora.computeIfAbsent(name, Corpus::load);
+    }
+
+    /**
+     * @return the size of the corpus in bytes
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @param offset - the offset of the first byte
+     * @param length - the number of bytes, which is cut short at the end of the corpus
+     * @return the extract, decoded as UTF-8
+     */
+    public String extract(long offset, int length) {
+        return StandardCharsets.UTF_8.decode(utf8Slice(offset, length)).toString();
+    }
+
+    /**
+     * @param offset - the offset of the first byte
+     * @param length - the number of bytes, which is cut short at the end of the corpus
+     * @return the extract, as a read-only slice of the corpus
+     */
+    public ByteBuffer utf8Slice(long offset, int length) {
+        if (offset < 0 || offset > size) {
+            throw new RuntimeException("Offset " + offset + " is outside of corpus " + name + " of size " + size);
+        }
+        long start = offset;
+        long end = Math.min(offset + length, size);
+        while (start < end && isContinuationByte(start)) {
+            start++;
+        }
+        while (end > start && end < size && isContinuationByte(end)) {
+            end--;
+        }
+        return slice(start, (int) (end - start));
+    }
+
+    /**
+     * @return the number of lines in the corpus. A final newline does not start another line.
+     */
+    public long lines() {
+        return getLineOffsets().length - 1;
+    }
+
+    /**
+     * @param index - the line number, starting from 0
+     * @return the line, without its line terminator
+     */
+    public String line(long index) {
+        return StandardCharsets.UTF_8.decode(lineSlice(index)).toString();
+    }
+
+    /**
+     * @param index - the line number, starting from 0
+     * @return the line, without its line terminator, as a read-only slice of the corpus
+     */
+    public ByteBuffer lineSlice(long index) {
+        long[] offsets = getLineOffsets();
+        if (index < 0 || index >= offsets.length - 1) {
+            throw new RuntimeException("Line " + index + " is outside of corpus " + name + " with " + (offsets.length - 1) + " lines");
+        }
+        long start = offsets[(int) index];
+        long end = offsets[(int) index + 1];
+        while (end > start && (byteAt(end - 1) == '\n' || byteAt(end - 1) == '\r')) {
+            end--;
+        }
+        return slice(start, (int) (end - start));
+    }
+
+    private ByteBuffer slice(long start, int length) {
+        int segment = (int) (start >>> segmentBits);
+        int position = (int) (start & segmentMask);
+        if (position + length <= segments[segment].capacity()) {
+            ByteBuffer slice = segments[segment].duplicate();
+            slice.position(position).limit(position + length);
+            return slice.slice();
+        }
+        // Only extracts which cross from one segment to the next are copied
+        byte[] bytes = new byte[length];
+        for (int idx = 0; idx < length; idx++) {
+            bytes[idx] = byteAt(start + idx);
+        }
+        return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+
+    private boolean isContinuationByte(long offset) {
+        return (byteAt(offset) & 0xC0) == 0x80;
+    }
+
+    private byte byteAt(long offset) {
+        return segments[(int) (offset >>> segmentBits)].get((int) (offset & segmentMask));
+    }
+
+    private long[] getLineOffsets() {
+        long[] offsets = lineOffsets;
+        if (offsets == null) {
+            synchronized (this) {
+                offsets = lineOffsets;
+                if (offsets == null) {
+                    offsets = lineOffsets = indexLines();
+                }
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * @return the offset of the start of each line, followed by the size of the corpus
+     */
+    private long[] indexLines() {
+        long[] offsets = new long[1024];
+        int count = 0;
+        offsets[count++] = 0L;
+        for (long offset = 0; offset < size; offset++) {
+            if (byteAt(offset) == '\n' && offset + 1 < size) {
+                if (count == offsets.length - 1) {
+                    long[] larger = new long[offsets.length * 2];
+                    System.arraycopy(offsets, 0, larger, 0, count);
+                    offsets = larger;
+                }
+                offsets[count++] = offset + 1;
+            }
+        }
+        if (size == 0L) {
+            count = 0;
+        }
+        long[] index = new long[count + 1];
+        System.arraycopy(offsets, 0, index, 0, count);
+        index[count] = size;
+        logger.debug("Indexed " + count + " lines of corpus " + name);
+        return index;
+    }
+
+    private static Corpus load(String name) {
+        File file = new File(name);
+        if (!file.isFile()) {
+            file = new File("data" + File.separator + name);
+        }
+        if (file.isFile()) {
+            return map(name, file);
+        }
+
+        URL resource = Thread.currentThread().getContextClassLoader().getResource(name);
+        if (resource == null) {
+            resource = Thread.currentThread().getContextClassLoader().getResource("data/" + name);
+        }
+        if (resource == null) {
+            throw new RuntimeException("Corpus " + name + " was missing.");
+        }
+        if ("file".equals(resource.getProtocol())) {
+            try {
+                return map(name, new File(resource.toURI()));
+            } catch (URISyntaxException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return read(name, resource);
+    }
+
+    private static Corpus map(String name, File file) {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            long size = channel.size();
+            ByteBuffer[] segments = new ByteBuffer[(int) ((size >>> segmentBits) + 1)];
+            for (int idx = 0; idx < segments.length; idx++) {
+                long position = ((long) idx) << segmentBits;
+                segments[idx] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(size - position, 1L << segmentBits));
+            }
+            logger.debug("Mapped " + size + " bytes of corpus " + name + " from " + file.getPath());
+            return new Corpus(name, segments, size);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to map corpus " + name + " from " + file.getPath(), e);
+        }
+    }
+
+    private static Corpus read(String name, URL resource) {
+        try (InputStream stream = resource.openStream()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[65536];
+            int read;
+            while ((read = stream.read(buffer)) > 0) {
+                bytes.write(buffer, 0, read);
+            }
+            logger.debug("Loaded " + bytes.size() + " bytes of corpus " + name + " from " + resource);
+            return new Corpus(name, new ByteBuffer[]{ByteBuffer.wrap(bytes.toByteArray()).asReadOnlyBuffer()}, bytes.size());
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read corpus " + name + " from " + resource, e);
+        }
+    }
+}
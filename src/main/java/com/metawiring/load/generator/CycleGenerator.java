@@ -0,0 +1,43 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.generator;
+
+/**
+ * This interface describes generators whose values are a pure function of the cycle number.
+ * They hold no state which changes while they are used, so they can be shared by any number of
+ * threads without contention, they do not need to be fast forwarded, and a given cycle always
+ * gets the same value, no matter which thread runs it or in what order.
+ *
+ * Callers which know the cycle should use {@link #apply(long)}. A cycle generator can not
+ * produce a value without a cycle, so {@link #get()} is not supported. The
+ * {@link GeneratorBindingList} keeps a cycle count for callers which do not supply one.
+ */
+public interface CycleGenerator<T> extends Generator<T>, ThreadsafeGenerator {
+
+    /**
+     * @param cycle the cycle number to generate a value for
+     * @return generated value of parameterized type T for the cycle
+     */
+    public T apply(long cycle);
+
+    @Override
+    default T get() {
+        throw new RuntimeException(getClass().getSimpleName() + " needs a cycle number. Use apply(cycle) instead of get().");
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.generator;
+
+/**
+ * A cycle generator which produces double values without boxing them. The
+ * {@link GeneratorBindingList} writes them straight into a bound statement by index.
+ */
+public interface DoubleGenerator extends CycleGenerator<Double> {
+
+    /**
+     * @param cycle the cycle number to generate a value for
+     * @return generated double value for the cycle
+     */
+    public double applyAsDouble(long cycle);
+
+    @Override
+    default Double apply(long cycle) {
+        return applyAsDouble(cycle);
+    }
+}
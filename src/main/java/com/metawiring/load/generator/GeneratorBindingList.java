@@ -20,6 +20,10 @@ package com.metawiring.load.generator;
 
 //
 
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.CodecRegistry;
+import com.datastax.driver.core.ColumnDefinitions;
+import com.datastax.driver.core.DataType;
 import com.datastax.driver.core.PreparedStatement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,6 +47,7 @@ public class GeneratorBindingList {
     private LinkedHashMap<String,Generator> bindings = new LinkedHashMap<String,Generator>();
     private List<Generator> generatorList = new ArrayList<Generator>();
     private Object all;
+    private long cycle;
 
     public GeneratorBindingList(GeneratorInstanceSource instanceSource) {
         this.instanceSource = instanceSource;
@@ -59,14 +64,30 @@ public class GeneratorBindingList {
     }
 
     /**
-     * Get a value from each generator in the bindings list
+     * Get a value from each generator in the bindings list, for the cycle after the last one.
+     * The first call is for the start offset given to
+     * {@link #bindGenerator(PreparedStatement, String, String, long)}, as with {@link #getAll(long)}.
      * @return An array of objects, the values generated from each generator in the list
      */
     public Object[] getAll() {
+        return getAll(cycle++);
+    }
+
+    /**
+     * Get a value from each generator in the bindings list. Cycle generators are given the cycle,
+     * and all others are asked for their next value.
+     * @param cycle the cycle which the values are for
+     * @return An array of objects, the values generated from each generator in the list
+     */
+    public Object[] getAll(long cycle) {
         Object[] values = new Object[generatorList.size()];
         int offset=0;
         for (Generator generator: generatorList) {
-            values[offset++]=generator.get();
+            if (generator instanceof CycleGenerator) {
+                values[offset++]=((CycleGenerator) generator).apply(cycle);
+            } else {
+                values[offset++]=generator.get();
+            }
         }
         if (trace ) {
             logger.info(Arrays.toString(values));
@@ -74,6 +95,61 @@ public class GeneratorBindingList {
         return values;
     }
 
+    /**
+     * Like {@link #bindAll(BoundStatement, long)}, for the cycle after the last one.
+     * @param bound a new bound statement from the prepared statement
+     * @return the bound statement, with a value set for each generator in the list
+     */
+    public BoundStatement bindAll(BoundStatement bound) {
+        return bindAll(bound, cycle++);
+    }
+
+    /**
+     * Set a value from each generator in the bindings list into the bound statement, by index.
+     * Long, int and double generators are written straight into the statement, so their
+     * values are never boxed, and no intermediate array is allocated. UTF-8 generators are
+     * set into text columns as serialized values, without creating a String.
+     * @param bound a new bound statement from the prepared statement
+     * @param cycle the cycle which the values are for
+     * @return the bound statement, with a value set for each generator in the list
+     */
+    public BoundStatement bindAll(BoundStatement bound, long cycle) {
+        int idx=0;
+        for (Generator generator: generatorList) {
+            if (generator instanceof LongGenerator) {
+                bound.setLong(idx, ((LongGenerator) generator).applyAsLong(cycle));
+            } else if (generator instanceof IntGenerator) {
+                bound.setInt(idx, ((IntGenerator) generator).applyAsInt(cycle));
+            } else if (generator instanceof DoubleGenerator) {
+                bound.setDouble(idx, ((DoubleGenerator) generator).applyAsDouble(cycle));
+            } else if (generator instanceof Utf8Generator && isUtf8Text(bound, idx)) {
+                bound.setBytesUnsafe(idx, ((Utf8Generator) generator).applyAsUtf8(cycle));
+            } else {
+                Object value = (generator instanceof CycleGenerator) ? ((CycleGenerator) generator).apply(cycle) : generator.get();
+                setObject(bound, idx, value);
+            }
+            idx++;
+        }
+        return bound;
+    }
+
+    private boolean isUtf8Text(BoundStatement bound, int idx) {
+        DataType.Name typeName = bound.preparedStatement().getVariables().getType(idx).getName();
+        return typeName == DataType.Name.TEXT || typeName == DataType.Name.VARCHAR;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void setObject(BoundStatement bound, int idx, Object value) {
+        if (value == null) {
+            bound.setToNull(idx);
+            return;
+        }
+        PreparedStatement preparedStatement = bound.preparedStatement();
+        CodecRegistry codecRegistry = preparedStatement.getCodecRegistry();
+        ColumnDefinitions variables = preparedStatement.getVariables();
+        bound.set(idx, value, codecRegistry.codecFor(variables.getType(idx), value));
+    }
+
     /**
      * For the prepared statement, add generatorBindings for the parameters, using each pair of names.
      * The first name in each pair is the local name of the object using the generatorBindings.
@@ -110,8 +186,12 @@ public class GeneratorBindingList {
         }
 
         set(varname, generator);
+        cycle = startOffset;
 
-        if (generator instanceof FastForwardableGenerator) {
+        if (generator instanceof CycleGenerator) {
+            logger.debug("generator " + genname + " is addressed by cycle");
+        }
+        else if (generator instanceof FastForwardableGenerator) {
             ((FastForwardableGenerator) generator).fastForward(startOffset);
             logger.debug("generator " + genname + " fast-forwarded to " + startOffset);
         }
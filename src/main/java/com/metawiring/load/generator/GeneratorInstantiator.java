@@ -15,50 +15,106 @@
  *   limitations under the License.
  *
  */
-
 package com.metawiring.load.generator;
 
 import com.metawiring.load.generators.CycleNumberGenerator;
-import org.apache.commons.lang3.reflect.ConstructorUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+/**
+ * Creates generators from generator specs. Each distinct spec is compiled once into a {@link GeneratorFactory},
+ * which resolves the class and constructor, so that creating another generator for the same spec, as each thread
+ * does for thread scoped generators, costs about as much as a constructor call. This is safe to call from many
+ * threads at once without locking.
+ */
 public class GeneratorInstantiator implements GeneratorInstanceSource {
     private final static Logger logger = LoggerFactory.getLogger(GeneratorInstantiator.class);
+    private final static Pattern poolSpec = Pattern.compile("^\\s*pool:(\\d+)(:(cycle|random))?\\s+(.+)$");
+    private final static Pattern seedSpec = Pattern.compile("^\\s*seed:(\\S+)\\s+(.+)$");
 
-    @SuppressWarnings("unchecked")
-    public synchronized Generator getGenerator(String generatorSpec) {
+    private final ConcurrentHashMap<String, GeneratorFactory<?>> compiledSpecs = new ConcurrentHashMap<>();
 
-        Class<Generator> generatorClass = (Class<Generator>) resolveGeneratorClass(generatorSpec);
-        Object[] generatorArgs = parseGeneratorArgs(generatorSpec);
+    public Generator getGenerator(String generatorSpec) {
+        return getFactory(generatorSpec).getGenerator();
+    }
 
-        try {
-            return ConstructorUtils.invokeConstructor(generatorClass, generatorArgs);
-        } catch (Exception e) {
-            logger.error(e.getMessage());
-            throw new RuntimeException(e);
+    /**
+     * @param generatorSpec a generator spec, such as Zipf:1:1000:0.99, pool:65536 NamedNumberGenerator:1000000 or
+     *                      seed:c0 LoremExtractGenerator:1000:1000
+     * @return the compiled factory for the spec, which is shared by all callers with the same spec
+     */
+    public GeneratorFactory<?> getFactory(String generatorSpec) {
+        GeneratorFactory<?> factory = compiledSpecs.get(generatorSpec);
+        if (factory == null) {
+            // Compiling outside of the map, since a pool spec compiles its inner spec too
+            GeneratorFactory<?> compiled = compile(generatorSpec);
+            factory = compiledSpecs.putIfAbsent(generatorSpec, compiled);
+            if (factory == null) {
+                factory = compiled;
+            }
         }
+        return factory;
+    }
 
+    @SuppressWarnings("unchecked")
+    private GeneratorFactory<?> compile(String generatorSpec) {
+        Matcher seeded = seedSpec.matcher(generatorSpec);
+        if (seeded.matches()) {
+            String name = seeded.group(1);
+            GeneratorFactory<?> source = getFactory(seeded.group(2).trim());
+            return () -> (Generator) RandomSource.seededBy(name, source::getGenerator);
+        }
+
+        Matcher pool = poolSpec.matcher(generatorSpec);
+        if (pool.matches()) {
+            int size = Integer.valueOf(pool.group(1));
+            boolean random = "random".equals(pool.group(3));
+            GeneratorFactory<?> source = getFactory(pool.group(4).trim());
+            String spec = generatorSpec.trim();
+            return () -> {
+                long started = System.currentTimeMillis();
+                PoolGenerator<?> pooled = PoolGenerator.of(size, random, source.getGenerator(), spec);
+                logger.info("Filled " + pooled + " in " + (System.currentTimeMillis() - started) + "ms");
+                return (Generator) pooled;
+            };
+        }
+
+        Class<Generator> generatorClass = resolveGeneratorClass(generatorSpec);
+        Object[] generatorArgs = parseGeneratorArgs(generatorSpec);
+        return new CompiledGeneratorFactory<>(generatorSpec, generatorClass, generatorArgs);
     }
 
     @SuppressWarnings("unchecked")
     private Class<Generator> resolveGeneratorClass(String generatorSpec) {
         Class<Generator> generatorClass = null;
         String className = (generatorSpec.split(":"))[0];
-        if (!className.contains(".")) {
+        boolean isShortName = !className.contains(".");
+        if (isShortName) {
             className = CycleNumberGenerator.class.getPackage().getName() + "." + className;
         }
 
         try {
             generatorClass = (Class<Generator>) Class.forName(className);
-            logger.debug("Initialized class:" + generatorClass.getSimpleName() + " for generator type: " + generatorSpec);
-            return generatorClass;
         } catch (ClassNotFoundException e) {
-            logger.error("Unable to map generator class " + generatorSpec);
-            throw new RuntimeException(e);
+            // Short names may leave off the Generator suffix, as in Zipf:1:1000:0.99
+            if (isShortName && !className.endsWith("Generator")) {
+                try {
+                    generatorClass = (Class<Generator>) Class.forName(className + "Generator");
+                } catch (ClassNotFoundException ignored) {
+                }
+            }
+            if (generatorClass == null) {
+                logger.error("Unable to map generator class " + generatorSpec);
+                throw new RuntimeException(e);
+            }
         }
+        logger.debug("Initialized class:" + generatorClass.getSimpleName() + " for generator type: " + generatorSpec);
+        return generatorClass;
     }
 
     private static Object[] parseGeneratorArgs(String generatorType) {
@@ -33,7 +33,7 @@ public class GeneratorSourceImpl implements GeneratorInstanceSource {
     private Map<String,GeneratorFactory> genFacts = new HashMap<String,GeneratorFactory>() {{
 
         put("threadnum",new GeneratorInstanceFactory("ThreadNumGenerator"));
-        put("date-epoch-hour", new GeneratorInstanceFactory("DateSequenceFieldGenerator:1000:YYYY-MM-dd-HH"));
+        put("date-epoch-hour", new GeneratorInstanceFactory("DateBucketFieldGenerator:1000:YYYY-MM-dd-HH"));
         put("varnames", new GeneratorInstanceFactory("LineExtractGenerator:data/variable_words.txt"));
         put("datesecond",new GeneratorInstanceFactory("DateSequenceGenerator:1000"));
         put("loremipsum:100:200", new GeneratorInstanceFactory("LoremExtractGenerator:100:200"));
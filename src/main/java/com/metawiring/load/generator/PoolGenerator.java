@@ -0,0 +1,234 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.generator;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed pool of values which are computed once from another generator, and then served by cycle or by a random
+ * index. This trades bounded memory for almost no cost per value, which pays off for generators which cost far more
+ * than the request itself, such as NamedNumberGenerator or MapGenerator. Pools are bound with a spec like
+ * <em>pool:65536 NamedNumberGenerator:1000000</em> or <em>pool:65536:random NamedNumberGenerator:1000000</em>.
+ * <p>
+ * Values are stored compactly by type: long, int and double values in primitive arrays, and text values as one
+ * block of UTF-8 bytes, which can be bound into text columns without encoding.
+ */
+public abstract class PoolGenerator<T> implements CycleGenerator<T> {
+
+    private final int size;
+    private final boolean random;
+    private final long seed;
+    private final String spec;
+    private final AtomicLong draws = new AtomicLong(0L);
+
+    protected PoolGenerator(int size, boolean random, String spec) {
+        this.size = size;
+        this.random = random;
+        this.seed = RandomSource.seedFor(spec);
+        this.spec = spec;
+    }
+
+    /**
+     * Fill a pool with the values of a generator for cycles 0 to size-1, or with as many calls to get() for a
+     * generator which does not take cycles.
+     * @param size the number of values in the pool
+     * @param random whether to serve values by a random index for each cycle, rather than by cycle modulo size
+     * @param generator the generator to take the values from
+     * @param spec the full pool spec, which the random index is seeded from
+     * @return a pool generator, of a primitive or text generator type where the values allow it
+     */
+    public static PoolGenerator<?> of(int size, boolean random, Generator<?> generator, String spec) {
+        if (size < 1) {
+            throw new RuntimeException("pool size must be at least 1: " + spec);
+        }
+        if (generator instanceof LongGenerator) {
+            long[] values = new long[size];
+            for (int idx = 0; idx < size; idx++) {
+                values[idx] = ((LongGenerator) generator).applyAsLong(idx);
+            }
+            return new LongPool(values, random, spec);
+        }
+        if (generator instanceof IntGenerator) {
+            int[] values = new int[size];
+            for (int idx = 0; idx < size; idx++) {
+                values[idx] = ((IntGenerator) generator).applyAsInt(idx);
+            }
+            return new IntPool(values, random, spec);
+        }
+        if (generator instanceof DoubleGenerator) {
+            double[] values = new double[size];
+            for (int idx = 0; idx < size; idx++) {
+                values[idx] = ((DoubleGenerator) generator).applyAsDouble(idx);
+            }
+            return new DoublePool(values, random, spec);
+        }
+
+        Object[] values = new Object[size];
+        boolean allText = true;
+        for (int idx = 0; idx < size; idx++) {
+            values[idx] = (generator instanceof CycleGenerator) ? ((CycleGenerator<?>) generator).apply(idx) : generator.get();
+            allText &= values[idx] instanceof String;
+        }
+        if (allText) {
+            return new TextPool(values, random, spec);
+        }
+        return new ObjectPool(values, random, spec);
+    }
+
+    protected final int index(long cycle) {
+        if (random) {
+            return RandomSource.bounded(RandomSource.at(seed, cycle), size);
+        }
+        return (int) Math.floorMod(cycle, (long) size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * For callers which do not supply a cycle, each call is taken as the next of this pool's own cycles.
+     * @return the value for the next cycle
+     */
+    @Override
+    public T get() {
+        return apply(draws.incrementAndGet());
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+
+    private final static class LongPool extends PoolGenerator<Long> implements LongGenerator {
+        private final long[] values;
+
+        private LongPool(long[] values, boolean random, String spec) {
+            super(values.length, random, spec);
+            this.values = values;
+        }
+
+        @Override
+        public long applyAsLong(long cycle) {
+            return values[index(cycle)];
+        }
+
+        @Override
+        public Long apply(long cycle) {
+            return applyAsLong(cycle);
+        }
+    }
+
+    private final static class IntPool extends PoolGenerator<Integer> implements IntGenerator {
+        private final int[] values;
+
+        private IntPool(int[] values, boolean random, String spec) {
+            super(values.length, random, spec);
+            this.values = values;
+        }
+
+        @Override
+        public int applyAsInt(long cycle) {
+            return values[index(cycle)];
+        }
+
+        @Override
+        public Integer apply(long cycle) {
+            return applyAsInt(cycle);
+        }
+    }
+
+    private final static class DoublePool extends PoolGenerator<Double> implements DoubleGenerator {
+        private final double[] values;
+
+        private DoublePool(double[] values, boolean random, String spec) {
+            super(values.length, random, spec);
+            this.values = values;
+        }
+
+        @Override
+        public double applyAsDouble(long cycle) {
+            return values[index(cycle)];
+        }
+
+        @Override
+        public Double apply(long cycle) {
+            return applyAsDouble(cycle);
+        }
+    }
+
+    /**
+     * Text values are kept as one array of UTF-8 bytes with the offset of each value, rather than as String objects.
+     */
+    private final static class TextPool extends PoolGenerator<String> implements Utf8Generator {
+        private final byte[] utf8;
+        private final int[] offsets;
+
+        private TextPool(Object[] values, boolean random, String spec) {
+            super(values.length, random, spec);
+            byte[][] encoded = new byte[values.length][];
+            long total = 0L;
+            for (int idx = 0; idx < values.length; idx++) {
+                encoded[idx] = ((String) values[idx]).getBytes(StandardCharsets.UTF_8);
+                values[idx] = null;
+                total += encoded[idx].length;
+            }
+            if (total > Integer.MAX_VALUE) {
+                throw new RuntimeException("pool values total " + total + " bytes, which is more than one pool may hold: " + spec);
+            }
+            this.utf8 = new byte[(int) total];
+            this.offsets = new int[values.length + 1];
+            for (int idx = 0; idx < encoded.length; idx++) {
+                System.arraycopy(encoded[idx], 0, utf8, offsets[idx], encoded[idx].length);
+                offsets[idx + 1] = offsets[idx] + encoded[idx].length;
+            }
+        }
+
+        @Override
+        public ByteBuffer applyAsUtf8(long cycle) {
+            int idx = index(cycle);
+            return ByteBuffer.wrap(utf8, offsets[idx], offsets[idx + 1] - offsets[idx]).slice();
+        }
+
+        @Override
+        public String apply(long cycle) {
+            int idx = index(cycle);
+            return new String(utf8, offsets[idx], offsets[idx + 1] - offsets[idx], StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Other values are shared between cycles, so they should not be modified by the caller.
+     */
+    private final static class ObjectPool extends PoolGenerator<Object> {
+        private final Object[] values;
+
+        private ObjectPool(Object[] values, boolean random, String spec) {
+            super(values.length, random, spec);
+            this.values = values;
+        }
+
+        @Override
+        public Object apply(long cycle) {
+            return values[index(cycle)];
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.generator;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A base for random generators, which are cycle generators whose values are drawn from a {@link RandomSource}
+ * with a seed of their own. Subclasses should only use the seed and the cycle, so that their values are
+ * reproducible with the same run seed.
+ */
+public abstract class RandomGenerator<T> implements CycleGenerator<T> {
+
+    protected final long seed;
+    private final AtomicLong draws = new AtomicLong(0L);
+
+    /**
+     * @param identity - the name and parameters of the generator, which its seed is derived from
+     */
+    protected RandomGenerator(String identity) {
+        this.seed = RandomSource.seedFor(identity);
+    }
+
+    /**
+     * For callers which do not supply a cycle, each call is taken as the next of this generator's own cycles.
+     * @return the value for the next cycle
+     */
+    @Override
+    public T get() {
+        return apply(draws.incrementAndGet());
+    }
+}
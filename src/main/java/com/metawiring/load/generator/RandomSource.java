@@ -0,0 +1,172 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.generator;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * The random source for all random generators. It is based on SplitMix64, which is small, fast, and splittable,
+ * and which passes the usual statistical test suites.
+ *
+ * <p>Generators do not keep any random state. Each one has a seed, which is mixed from the run seed and the identity of
+ * the generator, such as its spec string, and from the name it is seeded by, if any. Bindings are seeded by their
+ * binding names, so two bindings with the same spec draw different values. The random values for a cycle are a hash of
+ * the seed and the cycle, so they are the same every time the same cycle is run with the same run seed, no matter which
+ * thread runs it. When one cycle needs more than one random value, each is taken as another draw for the same
+ * cycle.</p>
+ *
+ * <p>For callers which are not addressed by cycle, an instance can also be used as an ordinary stream of random
+ * values. Instances are not threadsafe.</p>
+ *
+ * <p>None of the methods allocate.</p>
+ */
+public final class RandomSource {
+
+    private final static long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private final static long FNV_OFFSET = 0xcbf29ce484222325L;
+    private final static long FNV_PRIME = 0x100000001b3L;
+
+    private static volatile long runSeed = ThreadLocalRandom.current().nextLong();
+    private final static ThreadLocal<String> seedName = new ThreadLocal<>();
+
+    private long state;
+
+    public RandomSource(long seed) {
+        this.state = seed;
+    }
+
+    /**
+     * Set the seed which all generators created after this call will be seeded from.
+     * @param seed - the run seed
+     */
+    public static void setRunSeed(long seed) {
+        runSeed = seed;
+    }
+
+    public static long getRunSeed() {
+        return runSeed;
+    }
+
+    /**
+     * Create generators whose seeds are also derived from the given name. Generators which are created by the
+     * creator, including the ones they create themselves, are seeded by the name.
+     * @param name - the name to seed by, such as a binding name
+     * @param creator - creates the generators
+     * @return what the creator returned
+     */
+    public static <T> T seededBy(String name, Supplier<T> creator) {
+        String outerName = seedName.get();
+        seedName.set(name);
+        try {
+            return creator.get();
+        } finally {
+            if (outerName == null) {
+                seedName.remove();
+            } else {
+                seedName.set(outerName);
+            }
+        }
+    }
+
+    /**
+     * @param identity - something which names the generator and its parameters, like its spec string
+     * @return a seed for the generator, derived from the run seed, the identity, and the name it is seeded by
+     */
+    public static long seedFor(String identity) {
+        long hash = hash(FNV_OFFSET, identity);
+        String name = seedName.get();
+        if (name != null) {
+            hash = hash(hash ^ '@', name);
+        }
+        return mix64(runSeed ^ mix64(hash));
+    }
+
+    private static long hash(long hash, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * @return the random value for the cycle, from the given seed
+     */
+    public static long at(long seed, long cycle) {
+        return mix64(seed + (cycle * GOLDEN_GAMMA));
+    }
+
+    /**
+     * @return another random value for the cycle, from the given seed. Each draw is independent of the others and
+     * of {@link #at(long, long)}.
+     */
+    public static long at(long seed, long cycle, int draw) {
+        return mix64(at(seed, cycle) + ((draw + 1L) * GOLDEN_GAMMA));
+    }
+
+    /**
+     * @return a random value from 0 (inclusive) to bound (exclusive), from the high bits of the random value
+     */
+    public static int bounded(long random, int bound) {
+        return (int) (((random >>> 32) * bound) >>> 32);
+    }
+
+    /**
+     * @return a random value from 0 (inclusive) to bound (exclusive)
+     */
+    public static long bounded(long random, long bound) {
+        return (random >>> 1) % bound;
+    }
+
+    /**
+     * @return a random value from 0.0 (inclusive) to 1.0 (exclusive), with 53 bits of precision
+     */
+    public static double unit(long random) {
+        return (random >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * The SplitMix64 output function, which is Stafford's variant 13 of the 64 bit Murmur3 finalizer.
+     */
+    public static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    public long nextLong() {
+        return mix64(state += GOLDEN_GAMMA);
+    }
+
+    public int nextInt(int bound) {
+        return bounded(nextLong(), bound);
+    }
+
+    public double nextDouble() {
+        return unit(nextLong());
+    }
+
+    /**
+     * @return a new random source, whose values are independent of this one's
+     */
+    public RandomSource split() {
+        return new RandomSource(nextLong());
+    }
+}
@@ -15,36 +15,41 @@
  *   limitations under the License.
  *
  */
-
 package com.metawiring.load.generator;
 
-import com.google.common.collect.Lists;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.EnumMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
- * Provide a cache of generator cache instances, with nested scope. Provides warnings or errors as requested if generators are already defined in an enclosing
- * scope. Allows scopes to be nested. Throws exceptions when scopes are not nested properly.
+ * Provide a cache of generator cache instances, with nested scope. Allows scopes to be nested. Throws exceptions
+ * when scopes are not nested properly.
  * <p/>
- * Async Invariant: The cacheList must be kept in priority order, with more specific scopes listed first.
+ * Each cache holds one generator cache per enclosing scope, including its own, by scope. These are fixed when the
+ * cache is created, so lookups only read from concurrent maps, and do not lock once a generator is cached. Parsed
+ * generator specs are cached as well, and shared with sub scopes.
  */
 public class ScopedGeneratorCache implements ScopedCachingGeneratorSource {
     private static Logger logger = LoggerFactory.getLogger(ScopedGeneratorCache.class);
 
-    private RuntimeScope defaultGeneratorScope = RuntimeScope.activity;
-    private LinkedList<ScopedGeneratorLevel> cacheList = new LinkedList<>();
+    private final RuntimeScope defaultGeneratorScope = RuntimeScope.activity;
+    private final RuntimeScope runtimeScope;
+    private final EnumMap<RuntimeScope, GeneratorInstanceSource> levels;
     private final GeneratorInstanceSource generatorInstantiator;
+    private final ConcurrentHashMap<String, ScopedGeneratorDef> parsedSpecs;
 
     public ScopedGeneratorCache(
             GeneratorInstanceSource generatorInstantiator, RuntimeScope initialRuntimeScope) {
         this.generatorInstantiator = generatorInstantiator;
-        this.cacheList.addFirst(new ScopedGeneratorLevel(initialRuntimeScope, generatorInstantiator));
+        this.runtimeScope = initialRuntimeScope;
+        this.levels = new EnumMap<>(RuntimeScope.class);
+        this.levels.put(initialRuntimeScope, new CachingGeneratorSourceImpl(generatorInstantiator));
+        this.parsedSpecs = new ConcurrentHashMap<>();
     }
 
 
@@ -55,22 +60,23 @@ public class ScopedGeneratorCache implements ScopedCachingGeneratorSource {
 
     private ScopedGeneratorCache(ScopedGeneratorCache parentCache, RuntimeScope subScope) {
         this.generatorInstantiator = parentCache.generatorInstantiator;
-        RuntimeScope parentScope = parentCache.cacheList.peekFirst().runtimeScope;
+        RuntimeScope parentScope = parentCache.runtimeScope;
         if (parentScope.hasHigherPrecedenceThan(subScope)) {
             throw new RuntimeException("CACHE-SCOPE-PRECEDENCE-ERROR: " + subScope + " must have higher precedence than parent scope: " + parentScope);
         }
-        this.cacheList = Lists.newLinkedList(parentCache.cacheList);
-        this.cacheList.addFirst(new ScopedGeneratorLevel(subScope, new CachingGeneratorSourceImpl(parentCache.generatorInstantiator)));
+        this.runtimeScope = subScope;
+        this.levels = new EnumMap<>(parentCache.levels);
+        this.levels.put(subScope, new CachingGeneratorSourceImpl(parentCache.generatorInstantiator));
+        this.parsedSpecs = parentCache.parsedSpecs;
     }
 
     public RuntimeScope getRuntimeScope() {
-        return cacheList.peekFirst().runtimeScope;
+        return runtimeScope;
     }
 
     /**
      * Parses the specifiec scope from the front of the generatorSpec, and then does a lookup
-     * within the named scope for a cached generator instance, optionally creating the cache layer if
-     * configured to do so.
+     * within the named scope for a cached generator instance.
      * <p/>
      * <p>
      * The default scope is "activity"
@@ -81,7 +87,10 @@ public class ScopedGeneratorCache implements ScopedCachingGeneratorSource {
      */
     @Override
     public Generator getGenerator(String generatorSpec) {
-        ScopedGeneratorDef genSpec = new ScopedGeneratorDef(generatorSpec, defaultGeneratorScope);
+        ScopedGeneratorDef genSpec = parsedSpecs.get(generatorSpec);
+        if (genSpec == null) {
+            genSpec = parsedSpecs.computeIfAbsent(generatorSpec, spec -> new ScopedGeneratorDef(spec, defaultGeneratorScope));
+        }
         RuntimeScope targetScope = genSpec.runtimeScope;
 
         if (targetScope.hasEqualOrHigherPrecedenceThan(RuntimeScope.thread)) {
@@ -91,61 +100,40 @@ public class ScopedGeneratorCache implements ScopedCachingGeneratorSource {
             return generator;
         }
 
-        Iterator<ScopedGeneratorLevel> levelIterator = cacheList.iterator();
-        GeneratorInstanceSource targetLevelCache = null;
-
-        for (ScopedGeneratorLevel scopedGeneratorLevel : cacheList) {
-            if (scopedGeneratorLevel.runtimeScope.compareTo(targetScope) == 0) {
-                targetLevelCache = scopedGeneratorLevel.generatorSource;
-                break;
-            }
-        }
-
+        GeneratorInstanceSource targetLevelCache = levels.get(targetScope);
         if (targetLevelCache == null) {
-            throw new RuntimeException("CACHE-LEVEL-REFERENCE-ERROR: " + generatorSpec + ": No Such Cache " + ScopedGeneratorLevel.class.getSimpleName() + " for generator spec:" + generatorSpec);
+            throw new RuntimeException("CACHE-LEVEL-REFERENCE-ERROR: " + generatorSpec + ": No Such Cache level " + targetScope + " for generator spec:" + generatorSpec);
         }
 
         Generator generator = targetLevelCache.getGenerator(genSpec.generatorSpec);
         return generator;
     }
 
-    public static class ScopedGeneratorLevel implements Comparable<ScopedGeneratorLevel> {
-        public RuntimeScope runtimeScope;
-        public GeneratorInstanceSource generatorSource;
-
-        public ScopedGeneratorLevel(RuntimeScope runtimeScope, GeneratorInstanceSource generatorSource) {
-            this.runtimeScope = runtimeScope;
-            this.generatorSource = generatorSource;
-        }
-
-        /**
-         * This is in "precedence order", meaning that higher enum values will be placed earlier in the list.
-         * This is the opposite of the enum order.
-         */
-        @Override
-        public int compareTo(ScopedGeneratorLevel other) {
-            return -this.runtimeScope.compareTo(other.runtimeScope);
-        }
-
-        @Override
-        public String toString() {
-            return "scope:" + runtimeScope + ", genSource:" + generatorSource;
+    /**
+     * Give a generator spec a seed prefix after its scope, so that it is cached and seeded by the given name. Specs
+     * which already name a seed are not changed.
+     * @param generatorSpec A string in "[scope] &lt;genspec&gt;" format.
+     * @param name the name to seed by, such as a binding name
+     * @return a spec in "[scope] seed:name &lt;genspec&gt;" format
+     */
+    public static String seededSpec(String generatorSpec, String name) {
+        Matcher m = ScopedGeneratorDef.scopeAndSpec.matcher(generatorSpec);
+        if (!m.matches() || m.group(3).startsWith("seed:")) {
+            return generatorSpec;
         }
+        String scope = (m.group(1) != null) ? m.group(1) : "";
+        return scope + "seed:" + name + " " + m.group(3);
     }
 
     public static class ScopedGeneratorDef {
-        private static Pattern scopeAndSpec = Pattern.compile("^\\s*((thread|activity|phase|test)?\\s+)?(.*)$");
+        // "test" is kept as a short name for the testexecution scope
+        private static Pattern scopeAndSpec = Pattern.compile(
+                "^\\s*((definition|testexecution|test|node|process|phase|activity|statement|thread|cycle)\\s+)?(.*)$");
 
-        public RuntimeScope runtimeScope;
-        public String generatorSpec;
-        private RuntimeScope defaultScope;
+        public final RuntimeScope runtimeScope;
+        public final String generatorSpec;
 
         public ScopedGeneratorDef(String generatorSpec, RuntimeScope defaultScope) {
-            this.defaultScope = defaultScope;
-            parse(generatorSpec);
-        }
-
-        private void parse(String generatorSpec) {
             Matcher m = scopeAndSpec.matcher(generatorSpec);
             if (!m.matches()) {
                 throw new RuntimeException("Unable to match generator spec with pattern: " + scopeAndSpec.pattern() + ", generator spec: " + generatorSpec);
@@ -156,14 +144,21 @@ public class ScopedGeneratorCache implements ScopedCachingGeneratorSource {
             String genspec = matchResult.group(3);
             logger.trace("genscope:" + genscope + ", genspec" + genspec);
 
-            if (matchResult.group(2) == null) {
+            if (genscope == null) {
                 this.runtimeScope = defaultScope;
+            } else if (genscope.equals("test")) {
+                this.runtimeScope = RuntimeScope.testexecution;
             } else {
                 this.runtimeScope = RuntimeScope.valueOf(genscope);
             }
+            // Statements are not scopes which generators are cached in, and definitions are not a runtime scope
+            if (this.runtimeScope == RuntimeScope.definition || this.runtimeScope == RuntimeScope.statement) {
+                throw new RuntimeException("GENERATOR-SCOPE-ERROR: generators can not be scoped to " + genscope
+                        + ", use test, testexecution, node, process, phase, activity, thread or cycle, in generator spec: "
+                        + generatorSpec);
+            }
 
             this.generatorSpec = genspec;
-
         }
     }
 
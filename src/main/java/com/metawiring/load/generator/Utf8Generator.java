@@ -0,0 +1,41 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.generator;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A cycle generator of text values which are already encoded as UTF-8, such as slices of a {@link Corpus}.
+ * The {@link GeneratorBindingList} sets them into text columns of a bound statement as serialized values, so
+ * no String is created, and the driver does not encode them again.
+ */
+public interface Utf8Generator extends CycleGenerator<String> {
+
+    /**
+     * @param cycle the cycle number to generate a value for
+     * @return the UTF-8 encoded value for the cycle, which the caller may not modify
+     */
+    public ByteBuffer applyAsUtf8(long cycle);
+
+    @Override
+    default String apply(long cycle) {
+        return StandardCharsets.UTF_8.decode(applyAsUtf8(cycle)).toString();
+    }
+}
@@ -16,31 +16,18 @@
  *
  */
 
-package com.metawiring.load.generators;
-
-import com.metawiring.load.generator.FastForwardableGenerator;
-import com.metawiring.load.generator.ThreadsafeGenerator;
-import org.joda.time.format.DateTimeFormatter;
-
-import java.util.concurrent.atomic.AtomicLong;
 
+package com.metawiring.load.generators;
 
-public class CycleNumberGenerator implements FastForwardableGenerator<Long>,ThreadsafeGenerator {
+import com.metawiring.load.generator.LongGenerator;
 
-    private AtomicLong seq = new AtomicLong(0l);
-    private DateTimeFormatter formatter;
+public class CycleNumberGenerator implements LongGenerator {
 
     public CycleNumberGenerator() {
     }
 
     @Override
-    public Long get() {
-        long outval = seq.incrementAndGet();
-        return outval;
-    }
-
-    @Override
-    public void fastForward(long fastForwardTo) {
-        seq = new AtomicLong(fastForwardTo);
+    public long applyAsLong(long cycle) {
+        return cycle;
     }
 }
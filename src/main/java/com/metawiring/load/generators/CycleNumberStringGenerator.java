@@ -16,31 +16,18 @@
  *
  */
 
-package com.metawiring.load.generators;
-
-import com.metawiring.load.generator.FastForwardableGenerator;
-import com.metawiring.load.generator.ThreadsafeGenerator;
-import org.joda.time.format.DateTimeFormatter;
-
-import java.util.concurrent.atomic.AtomicLong;
 
+package com.metawiring.load.generators;
 
-public class CycleNumberStringGenerator implements FastForwardableGenerator<String>,ThreadsafeGenerator {
+import com.metawiring.load.generator.CycleGenerator;
 
-    private AtomicLong seq = new AtomicLong(0l);
-    private DateTimeFormatter formatter;
+public class CycleNumberStringGenerator implements CycleGenerator<String> {
 
     public CycleNumberStringGenerator() {
     }
 
     @Override
-    public String get() {
-        long outval = seq.incrementAndGet();
-        return String.valueOf(outval);
-    }
-
-    @Override
-    public void fastForward(long fastForwardTo) {
-        seq = new AtomicLong(fastForwardTo);
+    public String apply(long cycle) {
+        return String.valueOf(cycle);
     }
 }
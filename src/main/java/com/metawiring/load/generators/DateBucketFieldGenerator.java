@@ -0,0 +1,163 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.generators;
+
+import com.metawiring.load.generator.Utf8Generator;
+import org.joda.time.Chronology;
+import org.joda.time.DateTimeField;
+import org.joda.time.chrono.ISOChronology;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Produces the same values as {@link DateSequenceFieldGenerator}, but only formats a date once per time bucket.
+ * The bucket is the finest unit which the pattern shows, such as an hour for YYYY-MM-dd-HH. The formatted value
+ * is reused until a cycle falls outside of the bucket, so with an increment of 1000ms and an hourly pattern, only
+ * one in 3600 cycles formats a date. The value is kept encoded as UTF-8 as well, to be bound without encoding.
+ * <p>
+ * Each thread keeps its own last bucket. With split cycles, the threads of an activity work hours of time apart,
+ * so one bucket shared between them would be replaced on nearly every call.
+ */
+public class DateBucketFieldGenerator implements Utf8Generator {
+
+    private final long increment;
+    private final String format;
+    private final DateTimeFormatter formatter;
+    private final DateTimeField bucketField;
+    private final ThreadLocal<Bucket> lastBucket = ThreadLocal.withInitial(() -> new Bucket(0L, 0L, ""));
+
+    public DateBucketFieldGenerator(long increment, String format) {
+        this.increment = increment;
+        this.format = format;
+        this.formatter = DateTimeFormat.forPattern(format);
+        this.bucketField = finestField(format, ISOChronology.getInstance());
+    }
+    public DateBucketFieldGenerator(String increment, String format) {
+        this(Long.valueOf(increment), format);
+    }
+
+    @Override
+    public String apply(long cycle) {
+        return bucketFor(cycle * increment).text;
+    }
+
+    @Override
+    public ByteBuffer applyAsUtf8(long cycle) {
+        return bucketFor(cycle * increment).utf8.duplicate();
+    }
+
+    private Bucket bucketFor(long millis) {
+        Bucket current = lastBucket.get();
+        if (millis >= current.start && millis < current.end) {
+            return current;
+        }
+        long start = bucketField.roundFloor(millis);
+        Bucket next = new Bucket(start, bucketField.add(start, 1), formatter.print(millis));
+        lastBucket.set(next);
+        return next;
+    }
+
+    /**
+     * @return the field of the smallest unit which appears in the pattern, outside of any quoted text
+     */
+    private static DateTimeField finestField(String pattern, Chronology chronology) {
+        DateTimeField finest = null;
+        boolean quoted = false;
+        for (int idx = 0; idx < pattern.length(); idx++) {
+            char c = pattern.charAt(idx);
+            if (c == '\'') {
+                quoted = !quoted;
+                continue;
+            }
+            if (quoted) {
+                continue;
+            }
+            DateTimeField field = fieldFor(c, chronology);
+            if (field != null && (finest == null
+                    || field.getDurationField().getUnitMillis() < finest.getDurationField().getUnitMillis())) {
+                finest = field;
+            }
+        }
+        return (finest != null) ? finest : chronology.millisOfSecond();
+    }
+
+    private static DateTimeField fieldFor(char patternLetter, Chronology chronology) {
+        switch (patternLetter) {
+            case 'G':
+            case 'C':
+            case 'Y':
+            case 'y':
+                return chronology.year();
+            case 'x':
+                return chronology.weekyear();
+            case 'M':
+                return chronology.monthOfYear();
+            case 'w':
+                return chronology.weekOfWeekyear();
+            case 'D':
+            case 'd':
+            case 'e':
+            case 'E':
+                return chronology.dayOfMonth();
+            case 'a':
+                return chronology.halfdayOfDay();
+            case 'H':
+            case 'k':
+            case 'K':
+            case 'h':
+                return chronology.hourOfDay();
+            case 'm':
+                return chronology.minuteOfHour();
+            // Zone offsets can change at any minute, when daylight saving time starts or ends
+            case 'z':
+            case 'Z':
+                return chronology.minuteOfHour();
+            case 's':
+                return chronology.secondOfMinute();
+            case 'S':
+                return chronology.millisOfSecond();
+            default:
+                if (Character.isLetter(patternLetter)) {
+                    return chronology.millisOfSecond();
+                }
+                return null;
+        }
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + ":" + increment + ":" + format;
+    }
+
+    private final static class Bucket {
+        private final long start;
+        private final long end;
+        private final String text;
+        private final ByteBuffer utf8;
+
+        private Bucket(long start, long end, String text) {
+            this.start = start;
+            this.end = end;
+            this.text = text;
+            this.utf8 = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+        }
+    }
+}
@@ -18,17 +18,13 @@
 
 package com.metawiring.load.generators;
 
-import java.util.concurrent.atomic.AtomicLong;
-
-import com.metawiring.load.generator.FastForwardableGenerator;
-import com.metawiring.load.generator.ThreadsafeGenerator;
+import com.metawiring.load.generator.CycleGenerator;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 
 
-public class DateSequenceFieldGenerator implements FastForwardableGenerator<String>,ThreadsafeGenerator {
+public class DateSequenceFieldGenerator implements CycleGenerator<String> {
 
-    private AtomicLong seq = new AtomicLong(0l);
     private long increment = 1l;
     private DateTimeFormatter formatter;
 
@@ -41,14 +37,8 @@ public class DateSequenceFieldGenerator implements FastForwardableGenerator<Stri
     }
 
     @Override
-    public String get() {
-        long setval = seq.addAndGet(increment);
-        String outval = formatter.print(setval);
+    public String apply(long cycle) {
+        String outval = formatter.print(cycle * increment);
         return outval;
     }
-
-    @Override
-    public void fastForward(long fastForwardTo) {
-        seq = new AtomicLong(fastForwardTo);
-    }
 }
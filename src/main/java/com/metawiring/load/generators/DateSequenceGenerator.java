@@ -16,17 +16,18 @@
  *
  */
 
+
 package com.metawiring.load.generators;
 
-import com.metawiring.load.generator.FastForwardableGenerator;
-import com.metawiring.load.generator.ThreadsafeGenerator;
+import com.metawiring.load.generator.CycleGenerator;
 
 import java.util.Date;
-import java.util.concurrent.atomic.AtomicLong;
 
-public class DateSequenceGenerator implements FastForwardableGenerator<Date>,ThreadsafeGenerator {
+/**
+ * Dates which are increment milliseconds apart from one cycle to the next, starting from the epoch.
+ */
+public class DateSequenceGenerator implements CycleGenerator<Date> {
 
-    private AtomicLong seq = new AtomicLong(0l);
     private long increment = 1l;
 
     public DateSequenceGenerator() {}
@@ -36,13 +37,7 @@ public class DateSequenceGenerator implements FastForwardableGenerator<Date>,Thr
     public DateSequenceGenerator(String increment) { this.increment = Integer.valueOf(increment); }
 
     @Override
-    public Date get() {
-        long setval = seq.addAndGet(increment);
-        return new Date(setval);
-    }
-
-    @Override
-    public void fastForward(long fastForwardTo) {
-        seq = new AtomicLong(fastForwardTo);
+    public Date apply(long cycle) {
+        return new Date(cycle * increment);
     }
 }
@@ -0,0 +1,59 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package com.metawiring.load.generators;
+
+import com.metawiring.load.generator.LongGenerator;
+import com.metawiring.load.generator.RandomGenerator;
+import com.metawiring.load.generator.RandomSource;
+
+/**
+ * Keys from min to max, inclusive, whose distance from min is exponentially distributed with the given mean.
+ * For example, Exponential:1:1000000:1000 sends about 63% of the accesses to the first 1000 keys. Distances
+ * past the end of the range wrap around to the start.
+ */
+public class ExponentialGenerator extends RandomGenerator<Long> implements LongGenerator {
+
+    private final long min;
+    private final long max;
+    private final double mean;
+
+    public ExponentialGenerator(long min, long max, double mean) {
+        super("ExponentialGenerator:" + min + ":" + max + ":" + mean);
+        if (max < min) {
+            throw new RuntimeException("The max key must not be less than the min key for " + getClass().getSimpleName());
+        }
+        this.min = min;
+        this.max = max;
+        this.mean = mean;
+    }
+    public ExponentialGenerator(String min, String max, String mean) {
+        this(Long.valueOf(min), Long.valueOf(max), Double.valueOf(mean));
+    }
+
+    @Override
+    public long applyAsLong(long cycle) {
+        double distance = -mean * Math.log1p(-RandomSource.unit(RandomSource.at(seed, cycle)));
+        return min + ((long) distance % (max - min + 1));
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + ":" + min + ":" + max + ":" + mean;
+    }
+}
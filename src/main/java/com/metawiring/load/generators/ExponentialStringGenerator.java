@@ -0,0 +1,44 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package com.metawiring.load.generators;
+
+import com.metawiring.load.generator.RandomGenerator;
+
+/**
+ * The same keys as {@link ExponentialGenerator}, as strings.
+ */
+public class ExponentialStringGenerator extends RandomGenerator<String> {
+
+    private final ExponentialGenerator exponentialGenerator;
+
+    public ExponentialStringGenerator(String min, String max, String mean) {
+        super("ExponentialStringGenerator:" + min + ":" + max + ":" + mean);
+        this.exponentialGenerator = new ExponentialGenerator(min, max, mean);
+    }
+
+    @Override
+    public String apply(long cycle) {
+        return String.valueOf(exponentialGenerator.applyAsLong(cycle));
+    }
+
+    public String toString() {
+        return exponentialGenerator.toString().replace("ExponentialGenerator", getClass().getSimpleName());
+    }
+}
@@ -16,33 +16,28 @@
  *
  */
 
-package com.metawiring.load.generators;
 
-import com.metawiring.load.generator.Generator;
-import org.apache.commons.math3.distribution.IntegerDistribution;
-import org.apache.commons.math3.distribution.UniformIntegerDistribution;
-import org.apache.commons.math3.random.MersenneTwister;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+package com.metawiring.load.generators;
 
-import java.io.*;
-import java.nio.CharBuffer;
+import com.metawiring.load.generator.Corpus;
+import com.metawiring.load.generator.RandomGenerator;
+import com.metawiring.load.generator.RandomSource;
+import com.metawiring.load.generator.Utf8Generator;
 
-public class ExtractGenerator implements Generator<String> {
+import java.nio.ByteBuffer;
 
-    private final static Logger logger = LoggerFactory.getLogger(ExtractGenerator.class);
-    private static CharBuffer fileDataImage =null;
+public class ExtractGenerator extends RandomGenerator<String> implements Utf8Generator {
 
+    private final Corpus corpus;
     private int minsize, maxsize;
-    MersenneTwister rng = new MersenneTwister(System.nanoTime());
-    private IntegerDistribution sizeDistribution;
-    private IntegerDistribution positionDistribution;
     private String fileName;
 
     public ExtractGenerator(String fileName, int minsize, int maxsize) {
+        super("ExtractGenerator:" + fileName + ":" + minsize + ":" + maxsize);
         this.fileName = fileName;
         this.minsize = minsize;
         this.maxsize = maxsize;
+        this.corpus = Corpus.get(fileName);
     }
 
     public ExtractGenerator(String fileName, String minsize, String maxsize) {
@@ -50,75 +45,13 @@ public class ExtractGenerator implements Generator<String> {
     }
 
     @Override
-    public String get() {
-
-        if (fileDataImage == null) {
-            synchronized (ExtractGenerator.class) {
-                if (fileDataImage == null) {
-                    CharBuffer image= loadFileData();
-                    fileDataImage = image;
-
-                }
-            }
-        }
-
-        if (sizeDistribution==null)
-        {
-            sizeDistribution = new UniformIntegerDistribution(rng, minsize, maxsize);
-            positionDistribution = new UniformIntegerDistribution(rng, 1, fileDataImage.limit() - maxsize);
-        }
-
-        int offset = positionDistribution.sample();
-        int length = sizeDistribution.sample();
-        String sub = null;
-        try {
-            sub = fileDataImage.subSequence(offset, offset + length).toString();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-        return sub;
-    }
-
-    private CharBuffer loadFileData() {
-        InputStream stream = null;
-        File onFileSystem= new File("data" + File.separator + fileName);
-
-        if (onFileSystem.exists()) {
-            try {
-                stream = new FileInputStream(onFileSystem);
-            } catch (FileNotFoundException e) {
-                throw new RuntimeException("Unable to find file " + onFileSystem.getPath() + " after verifying that it exists.");
-            }
-            logger.debug("Loaded file data from " + onFileSystem.getPath());
-        }
-
-        if (stream==null) {
-            stream = Thread.currentThread().getContextClassLoader().getResourceAsStream("data/"+fileName);
-            logger.debug("Loaded file data from classpath resource " + fileName);
-        }
-
-        if (stream == null) {
-            throw new RuntimeException(fileName + " was missing.");
-        }
-
-        CharBuffer image;
-        try {
-            InputStreamReader isr = new InputStreamReader(stream);
-            image = CharBuffer.allocate(1024 * 1024);
-            isr.read(image);
-            isr.close();
-        } catch (IOException e) {
-            logger.error(e.getMessage());
-            throw new RuntimeException(e);
-        }
-        image.flip();
-
-
-        return image.asReadOnlyBuffer();
-
+    public ByteBuffer applyAsUtf8(long cycle) {
+        long offset = 1 + RandomSource.bounded(RandomSource.at(seed, cycle, 0), corpus.size() - maxsize);
+        int length = minsize + RandomSource.bounded(RandomSource.at(seed, cycle, 1), maxsize - minsize + 1);
+        return corpus.utf8Slice(offset, length);
     }
 
     public String toString() {
-        return getClass().getSimpleName() + ":" + minsize + ":" + maxsize;
+        return getClass().getSimpleName() + ":" + fileName + ":" + minsize + ":" + maxsize;
     }
 }
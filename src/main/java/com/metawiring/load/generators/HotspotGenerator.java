@@ -0,0 +1,72 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package com.metawiring.load.generators;
+
+import com.metawiring.load.generator.LongGenerator;
+import com.metawiring.load.generator.RandomGenerator;
+import com.metawiring.load.generator.RandomSource;
+
+/**
+ * Keys from min to max, inclusive, where a hot set at the start of the range gets a larger share of the accesses.
+ * For example, Hotspot:1:1000000:0.2:0.8 sends 80% of the accesses to the first 20% of the keys. Within the hot
+ * set and within the rest of the keys, the accesses are uniform.
+ */
+public class HotspotGenerator extends RandomGenerator<Long> implements LongGenerator {
+
+    private final long min;
+    private final long max;
+    private final double hotSetFraction;
+    private final double hotOpsFraction;
+    private final long hotKeys;
+    private final long coldKeys;
+
+    public HotspotGenerator(long min, long max, double hotSetFraction, double hotOpsFraction) {
+        super("HotspotGenerator:" + min + ":" + max + ":" + hotSetFraction + ":" + hotOpsFraction);
+        if (max < min) {
+            throw new RuntimeException("The max key must not be less than the min key for " + getClass().getSimpleName());
+        }
+        if (hotSetFraction < 0.0D || hotSetFraction > 1.0D || hotOpsFraction < 0.0D || hotOpsFraction > 1.0D) {
+            throw new RuntimeException("The hot set and hot ops fractions must be between 0.0 and 1.0 for " + getClass().getSimpleName());
+        }
+        this.min = min;
+        this.max = max;
+        this.hotSetFraction = hotSetFraction;
+        this.hotOpsFraction = hotOpsFraction;
+        long keys = max - min + 1;
+        this.hotKeys = Math.max(1L, Math.min(keys, (long) (keys * hotSetFraction)));
+        this.coldKeys = keys - hotKeys;
+    }
+    public HotspotGenerator(String min, String max, String hotSetFraction, String hotOpsFraction) {
+        this(Long.valueOf(min), Long.valueOf(max), Double.valueOf(hotSetFraction), Double.valueOf(hotOpsFraction));
+    }
+
+    @Override
+    public long applyAsLong(long cycle) {
+        long random = RandomSource.at(seed, cycle);
+        if (coldKeys == 0L || RandomSource.unit(random) < hotOpsFraction) {
+            return min + RandomSource.bounded(RandomSource.at(seed, cycle, 0), hotKeys);
+        }
+        return min + hotKeys + RandomSource.bounded(RandomSource.at(seed, cycle, 0), coldKeys);
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + ":" + min + ":" + max + ":" + hotSetFraction + ":" + hotOpsFraction;
+    }
+}
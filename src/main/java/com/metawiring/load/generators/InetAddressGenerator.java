@@ -18,22 +18,19 @@
 
 package com.metawiring.load.generators;
 
-import com.metawiring.load.generator.FastForwardableGenerator;
-import com.metawiring.load.generator.ThreadsafeGenerator;
+import com.metawiring.load.generator.CycleGenerator;
 
 import java.net.Inet4Address;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
-import java.util.concurrent.atomic.AtomicInteger;
 
-public class InetAddressGenerator implements FastForwardableGenerator<InetAddress>,ThreadsafeGenerator {
-    private AtomicInteger atomicInt = new AtomicInteger();
+public class InetAddressGenerator implements CycleGenerator<InetAddress> {
 
     @Override
-    public InetAddress get() {
+    public InetAddress apply(long cycle) {
 
-        int image = atomicInt.incrementAndGet();
+        int image = (int) cycle;
         ByteBuffer bytes = ByteBuffer.allocate(4);
         bytes.putInt(image);
         bytes.flip();
@@ -44,9 +41,4 @@ public class InetAddressGenerator implements FastForwardableGenerator<InetAddres
             throw new RuntimeException(e);
         }
     }
-
-    @Override
-    public void fastForward(long fastForwardTo) {
-        atomicInt.set((int)fastForwardTo % Integer.MAX_VALUE);
-    }
 }
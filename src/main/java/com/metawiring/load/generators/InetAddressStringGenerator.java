@@ -18,19 +18,17 @@
 
 package com.metawiring.load.generators;
 
-import com.metawiring.load.generator.FastForwardableGenerator;
+import com.metawiring.load.generator.CycleGenerator;
 
 import java.net.Inet4Address;
 import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
-import java.util.concurrent.atomic.AtomicInteger;
 
-public class InetAddressStringGenerator implements FastForwardableGenerator<String> {
-    private AtomicInteger atomicInt = new AtomicInteger();
+public class InetAddressStringGenerator implements CycleGenerator<String> {
 
     @Override
-    public String get() {
-        int image = atomicInt.incrementAndGet();
+    public String apply(long cycle) {
+        int image = (int) cycle;
         ByteBuffer bytes = ByteBuffer.allocate(4);
         bytes.clear();
         bytes.putInt(image);
@@ -42,9 +40,4 @@ public class InetAddressStringGenerator implements FastForwardableGenerator<Stri
             throw new RuntimeException(e);
         }
     }
-
-    @Override
-    public void fastForward(long fastForwardTo) {
-        atomicInt.set((int)fastForwardTo % Integer.MAX_VALUE);
-    }
 }
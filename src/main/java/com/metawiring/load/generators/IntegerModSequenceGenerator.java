@@ -16,20 +16,14 @@
  *
  */
 
-package com.metawiring.load.generators;
 
-import com.metawiring.load.generator.FastForwardableGenerator;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+package com.metawiring.load.generators;
 
-import java.security.InvalidParameterException;
+import com.metawiring.load.generator.IntGenerator;
 
-public class IntegerModSequenceGenerator implements FastForwardableGenerator<Integer> {
-    private final static Logger logger = LoggerFactory.getLogger(IntegerModSequenceGenerator.class);
+public class IntegerModSequenceGenerator implements IntGenerator {
 
     private final int modulo;
-//    AtomicInteger seq=new AtomicInteger(0);
-    int seq=0;
 
     public IntegerModSequenceGenerator(int modulo) {
         this.modulo=modulo;
@@ -39,21 +33,7 @@ public class IntegerModSequenceGenerator implements FastForwardableGenerator<Int
     }
 
     @Override
-    public Integer get() {
-        seq++;
-        int ret = seq % modulo;
-        return ret;
-//        int s = seq.incrementAndGet();
-//        //logger.info("mod s:" + s);
-//        return (s % modulo);
-    }
-
-    @Override
-    public void fastForward(long fastForwardTo) {
-        if (fastForwardTo>Integer.MAX_VALUE) {
-            throw new InvalidParameterException("Unable to fast forward an int sequence generator with value " + fastForwardTo);
-        }
-        seq = (int) fastForwardTo;
-//        seq = new AtomicInteger((int)fastForwardTo);
+    public int applyAsInt(long cycle) {
+        return (int) (cycle % modulo);
     }
-}
\ No newline at end of file
+}
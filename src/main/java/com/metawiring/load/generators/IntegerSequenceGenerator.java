@@ -16,24 +16,15 @@
  *
  */
 
-package com.metawiring.load.generators;
-
-import com.metawiring.load.generator.FastForwardableGenerator;
-import com.metawiring.load.generator.ThreadsafeGenerator;
-
-import java.util.concurrent.atomic.AtomicInteger;
 
-public class IntegerSequenceGenerator implements FastForwardableGenerator<Integer>,ThreadsafeGenerator {
+package com.metawiring.load.generators;
 
-    AtomicInteger seq=new AtomicInteger(0);
+import com.metawiring.load.generator.IntGenerator;
 
-    @Override
-    public Integer get() {
-        return seq.incrementAndGet();
-    }
+public class IntegerSequenceGenerator implements IntGenerator {
 
     @Override
-    public void fastForward(long fastForwardTo) {
-        seq.set((int)fastForwardTo);
+    public int applyAsInt(long cycle) {
+        return (int) cycle;
     }
-}
\ No newline at end of file
+}
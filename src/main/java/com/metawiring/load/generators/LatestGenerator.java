@@ -0,0 +1,57 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package com.metawiring.load.generators;
+
+import com.metawiring.load.generator.LongGenerator;
+import com.metawiring.load.generator.RandomGenerator;
+
+/**
+ * Keys which favor the most recently written ones, for activities which read keys that a concurrent write
+ * activity assigns by cycle. The key for a cycle is at most that cycle, and the distance back from it is
+ * Zipf distributed over the window. For example, Latest:1000000:0.99 mostly reads keys written in the last few
+ * cycles, and never reads one which is more than a million cycles old.
+ */
+public class LatestGenerator extends RandomGenerator<Long> implements LongGenerator {
+
+    private final long window;
+    private final ZipfSampler sampler;
+
+    public LatestGenerator(long window, double exponent) {
+        super("LatestGenerator:" + window + ":" + exponent);
+        if (window < 1L) {
+            throw new RuntimeException("The window must be at least 1 for " + getClass().getSimpleName());
+        }
+        this.window = window;
+        this.sampler = new ZipfSampler(exponent);
+    }
+    public LatestGenerator(String window, String exponent) {
+        this(Long.valueOf(window), Double.valueOf(exponent));
+    }
+
+    @Override
+    public long applyAsLong(long cycle) {
+        long elements = Math.min(window, Math.max(cycle, 0L) + 1);
+        return cycle - sampler.sample(seed, cycle, elements) + 1;
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + ":" + window + ":" + sampler.getExponent();
+    }
+}
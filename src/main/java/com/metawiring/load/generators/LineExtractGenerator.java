@@ -16,68 +16,36 @@
  *
  */
 
-package com.metawiring.load.generators;
 
-import com.metawiring.load.generator.Generator;
-import org.apache.commons.math3.distribution.IntegerDistribution;
-import org.apache.commons.math3.distribution.UniformIntegerDistribution;
-import org.apache.commons.math3.random.MersenneTwister;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+package com.metawiring.load.generators;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.CharBuffer;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import com.metawiring.load.generator.Corpus;
+import com.metawiring.load.generator.RandomGenerator;
+import com.metawiring.load.generator.RandomSource;
+import com.metawiring.load.generator.Utf8Generator;
 
-public class LineExtractGenerator implements Generator<String> {
-    private final static Logger logger = LoggerFactory.getLogger(LineExtractGenerator.class);
+import java.nio.ByteBuffer;
 
-    private List<String> lines = new ArrayList<>();
+public class LineExtractGenerator extends RandomGenerator<String> implements Utf8Generator {
 
-    MersenneTwister rng = new MersenneTwister(System.nanoTime());
-    private IntegerDistribution itemDistribution;
+    private final Corpus corpus;
+    private final long lines;
     private String filename;
 
     public LineExtractGenerator(String filename) {
+        super("LineExtractGenerator:" + filename);
         this.filename = filename;
-        loadLines(this.filename);
-        itemDistribution= new UniformIntegerDistribution(rng, 0, lines.size()-2);
+        this.corpus = Corpus.get(filename);
+        this.lines = corpus.lines();
     }
 
     @Override
-    public String get() {
-        int itemIdx = itemDistribution.sample();
-        String item = lines.get(itemIdx);
-        return item;
+    public ByteBuffer applyAsUtf8(long cycle) {
+        long itemIdx = RandomSource.bounded(RandomSource.at(seed, cycle), lines);
+        return corpus.lineSlice(itemIdx);
     }
 
     public String toString() {
         return getClass().getSimpleName() + ":" + filename;
     }
-
-    private void loadLines(String filename) {
-
-        InputStream stream = LineExtractGenerator.class.getClassLoader().getResourceAsStream(filename);
-        if (stream == null) {
-            throw new RuntimeException(filename + " was missing.");
-        }
-
-        CharBuffer linesImage;
-        try {
-            InputStreamReader isr = new InputStreamReader(stream);
-            linesImage = CharBuffer.allocate(1024 * 1024);
-            isr.read(linesImage);
-            isr.close();
-        } catch (IOException e) {
-            logger.error(e.getMessage());
-            throw new RuntimeException(e);
-        }
-        linesImage.flip();
-        Collections.addAll(lines, linesImage.toString().split("\n"));
-    }
-
 }
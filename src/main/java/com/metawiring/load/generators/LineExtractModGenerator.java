@@ -16,68 +16,32 @@
  *
  */
 
-package com.metawiring.load.generators;
 
-import com.metawiring.load.generator.FastForwardableGenerator;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+package com.metawiring.load.generators;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.CharBuffer;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.concurrent.atomic.AtomicLong;
+import com.metawiring.load.generator.Corpus;
+import com.metawiring.load.generator.Utf8Generator;
 
-public class LineExtractModGenerator implements FastForwardableGenerator<String> {
-    private final static Logger logger = LoggerFactory.getLogger(LineExtractModGenerator.class);
+import java.nio.ByteBuffer;
 
-    private AtomicLong atomicLong = new AtomicLong();
-    private List<String> lines = new ArrayList<>();
+public class LineExtractModGenerator implements Utf8Generator {
 
+    private final Corpus corpus;
+    private final long lines;
     private String filename;
 
     public LineExtractModGenerator(String filename) {
         this.filename = filename;
-        loadLines(this.filename);
+        this.corpus = Corpus.get(filename);
+        this.lines = corpus.lines();
     }
 
     @Override
-    public String get() {
-        int itemIdx = (int) (atomicLong.incrementAndGet() % lines.size());
-        String item = lines.get(itemIdx);
-        return item;
+    public ByteBuffer applyAsUtf8(long cycle) {
+        return corpus.lineSlice(Math.floorMod(cycle, lines));
     }
 
     public String toString() {
         return getClass().getSimpleName() + ":" + filename;
     }
-
-    private void loadLines(String filename) {
-
-        InputStream stream = LineExtractModGenerator.class.getClassLoader().getResourceAsStream(filename);
-        if (stream == null) {
-            throw new RuntimeException(filename + " was missing.");
-        }
-
-        CharBuffer linesImage;
-        try {
-            InputStreamReader isr = new InputStreamReader(stream);
-            linesImage = CharBuffer.allocate(1024 * 1024);
-            isr.read(linesImage);
-            isr.close();
-        } catch (IOException e) {
-            logger.error(e.getMessage());
-            throw new RuntimeException(e);
-        }
-        linesImage.flip();
-        Collections.addAll(lines, linesImage.toString().split("\n"));
-    }
-
-    @Override
-    public void fastForward(long fastForwardTo) {
-        atomicLong.set(fastForwardTo);
-    }
 }
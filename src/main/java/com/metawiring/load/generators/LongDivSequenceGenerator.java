@@ -16,19 +16,17 @@
  *
  */
 
-package com.metawiring.load.generators;
 
-import com.metawiring.load.generator.FastForwardableGenerator;
+package com.metawiring.load.generators;
 
-import java.util.concurrent.atomic.AtomicLong;
+import com.metawiring.load.generator.LongGenerator;
 
 /**
  * Integer devide the cycle, the other side of modulo.
  */
-public class LongDivSequenceGenerator implements FastForwardableGenerator<Long> {
+public class LongDivSequenceGenerator implements LongGenerator {
 
     private final long divisor;
-    AtomicLong seq=new AtomicLong(0);
 
     public LongDivSequenceGenerator(long divisor) {
         this.divisor=divisor;
@@ -38,12 +36,7 @@ public class LongDivSequenceGenerator implements FastForwardableGenerator<Long>
     }
 
     @Override
-    public Long get() {
-        return (seq.incrementAndGet() / divisor);
-    }
-
-    @Override
-    public void fastForward(long fastForwardTo) {
-        seq = new AtomicLong(fastForwardTo);
+    public long applyAsLong(long cycle) {
+        return (cycle / divisor);
     }
-}
\ No newline at end of file
+}
@@ -16,19 +16,17 @@
  *
  */
 
-package com.metawiring.load.generators;
 
-import com.metawiring.load.generator.FastForwardableGenerator;
+package com.metawiring.load.generators;
 
-import java.util.concurrent.atomic.AtomicLong;
+import com.metawiring.load.generator.CycleGenerator;
 
 /**
  * Integer devide the cycle, the other side of modulo.
  */
-public class LongDivStringSequenceGenerator implements FastForwardableGenerator<String> {
+public class LongDivStringSequenceGenerator implements CycleGenerator<String> {
 
     private final long divisor;
-    AtomicLong seq=new AtomicLong(0);
 
     public LongDivStringSequenceGenerator(long divisor) {
         this.divisor=divisor;
@@ -38,12 +36,7 @@ public class LongDivStringSequenceGenerator implements FastForwardableGenerator<
     }
 
     @Override
-    public String get() {
-        return String.valueOf((seq.incrementAndGet() / divisor));
-    }
-
-    @Override
-    public void fastForward(long fastForwardTo) {
-        seq = new AtomicLong(fastForwardTo);
+    public String apply(long cycle) {
+        return String.valueOf((cycle / divisor));
     }
-}
\ No newline at end of file
+}
@@ -16,28 +16,24 @@
  *
  */
 
-package com.metawiring.load.generators;
 
-import com.metawiring.load.generator.FastForwardableGenerator;
+package com.metawiring.load.generators;
 
-import java.util.concurrent.atomic.AtomicLong;
+import com.metawiring.load.generator.LongGenerator;
 
-public class LongModSequenceGenerator implements FastForwardableGenerator<Long> {
+public class LongModSequenceGenerator implements LongGenerator {
 
     private final long modulo;
-    AtomicLong seq=new AtomicLong(0);
 
     public LongModSequenceGenerator(long modulo) {
         this.modulo=modulo;
     }
-
-    @Override
-    public Long get() {
-        return (seq.incrementAndGet() % modulo);
+    public LongModSequenceGenerator(String modulo) {
+        this(Long.valueOf(modulo));
     }
 
     @Override
-    public void fastForward(long fastForwardTo) {
-        seq = new AtomicLong(fastForwardTo);
+    public long applyAsLong(long cycle) {
+        return (cycle % modulo);
     }
-}
\ No newline at end of file
+}
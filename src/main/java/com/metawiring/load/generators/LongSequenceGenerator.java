@@ -16,24 +16,15 @@
  *
  */
 
-package com.metawiring.load.generators;
-
-import com.metawiring.load.generator.FastForwardableGenerator;
-import com.metawiring.load.generator.ThreadsafeGenerator;
-
-import java.util.concurrent.atomic.AtomicLong;
 
-public class LongSequenceGenerator implements FastForwardableGenerator<Long>,ThreadsafeGenerator {
+package com.metawiring.load.generators;
 
-    AtomicLong seq=new AtomicLong(0);
+import com.metawiring.load.generator.LongGenerator;
 
-    @Override
-    public Long get() {
-        return seq.incrementAndGet();
-    }
+public class LongSequenceGenerator implements LongGenerator {
 
     @Override
-    public void fastForward(long fastForwardTo) {
-        seq = new AtomicLong(fastForwardTo);
+    public long applyAsLong(long cycle) {
+        return cycle;
     }
-}
\ No newline at end of file
+}
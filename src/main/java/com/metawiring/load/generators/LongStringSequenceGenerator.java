@@ -16,24 +16,15 @@
  *
  */
 
-package com.metawiring.load.generators;
-
-import com.metawiring.load.generator.FastForwardableGenerator;
-import com.metawiring.load.generator.ThreadsafeGenerator;
-
-import java.util.concurrent.atomic.AtomicLong;
 
-public class LongStringSequenceGenerator implements FastForwardableGenerator<String>,ThreadsafeGenerator {
+package com.metawiring.load.generators;
 
-    AtomicLong seq=new AtomicLong(0);
+import com.metawiring.load.generator.CycleGenerator;
 
-    @Override
-    public String get() {
-        return String.valueOf(seq.incrementAndGet());
-    }
+public class LongStringSequenceGenerator implements CycleGenerator<String> {
 
     @Override
-    public void fastForward(long fastForwardTo) {
-        seq = new AtomicLong(fastForwardTo);
+    public String apply(long cycle) {
+        return String.valueOf(cycle);
     }
-}
\ No newline at end of file
+}
@@ -16,32 +16,26 @@
  *
  */
 
-package com.metawiring.load.generators;
-
-import com.metawiring.load.generator.Generator;
-import org.apache.commons.math3.distribution.IntegerDistribution;
-import org.apache.commons.math3.distribution.UniformIntegerDistribution;
-import org.apache.commons.math3.random.MersenneTwister;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.io.*;
-import java.nio.CharBuffer;
+package com.metawiring.load.generators;
 
-public class LoremExtractGenerator implements Generator<String> {
+import com.metawiring.load.generator.Corpus;
+import com.metawiring.load.generator.RandomGenerator;
+import com.metawiring.load.generator.RandomSource;
+import com.metawiring.load.generator.Utf8Generator;
 
-    private final static Logger logger = LoggerFactory.getLogger(LoremExtractGenerator.class);
+import java.nio.ByteBuffer;
 
-    private static CharBuffer loremIpsumImage=null;
+public class LoremExtractGenerator extends RandomGenerator<String> implements Utf8Generator {
 
+    private final Corpus corpus;
     private int minsize, maxsize;
-    MersenneTwister rng = new MersenneTwister(System.nanoTime());
-    private IntegerDistribution sizeDistribution;
-    private IntegerDistribution positionDistribution;
 
     public LoremExtractGenerator(int minsize, int maxsize) {
+        super("LoremExtractGenerator:" + minsize + ":" + maxsize);
         this.minsize = minsize;
         this.maxsize = maxsize;
+        this.corpus = Corpus.get("data/lorem_ipsum_full.txt");
     }
 
     public LoremExtractGenerator(String minsize, String maxsize) {
@@ -49,51 +43,10 @@ public class LoremExtractGenerator implements Generator<String> {
     }
 
     @Override
-    public String get() {
-
-        if (loremIpsumImage == null) {
-            synchronized (LoremExtractGenerator.class) {
-                if (loremIpsumImage == null) {
-                    CharBuffer image= loadLoremIpsum();
-                    loremIpsumImage = image;
-                }
-                sizeDistribution = new UniformIntegerDistribution(rng, minsize, maxsize);
-                positionDistribution = new UniformIntegerDistribution(rng, 1, loremIpsumImage.limit() - maxsize);
-            }
-        }
-
-        int offset = positionDistribution.sample();
-        int length = sizeDistribution.sample();
-        String sub = null;
-        try {
-            sub = loremIpsumImage.subSequence(offset, offset + length).toString();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-        return sub;
-    }
-
-    private CharBuffer loadLoremIpsum() {
-        InputStream stream = LoremExtractGenerator.class.getClassLoader().getResourceAsStream("data/lorem_ipsum_full.txt");
-        if (stream == null) {
-            throw new RuntimeException("lorem_ipsum_full.txt was missing.");
-        }
-
-        CharBuffer image;
-        try {
-            InputStreamReader isr = new InputStreamReader(stream);
-            image = CharBuffer.allocate(1024 * 1024);
-            isr.read(image);
-            isr.close();
-        } catch (IOException e) {
-            logger.error(e.getMessage());
-            throw new RuntimeException(e);
-        }
-        image.flip();
-
-
-        return image.asReadOnlyBuffer();
-
+    public ByteBuffer applyAsUtf8(long cycle) {
+        long offset = 1 + RandomSource.bounded(RandomSource.at(seed, cycle, 0), corpus.size() - maxsize);
+        int length = minsize + RandomSource.bounded(RandomSource.at(seed, cycle, 1), maxsize - minsize + 1);
+        return corpus.utf8Slice(offset, length);
     }
 
     public String toString() {
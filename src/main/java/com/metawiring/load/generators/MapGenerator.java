@@ -18,22 +18,20 @@
 
 package com.metawiring.load.generators;
 
-import com.metawiring.load.generator.Generator;
-import org.apache.commons.math3.distribution.IntegerDistribution;
-import org.apache.commons.math3.distribution.UniformIntegerDistribution;
-import org.apache.commons.math3.random.MersenneTwister;
+import com.metawiring.load.generator.RandomGenerator;
+import com.metawiring.load.generator.RandomSource;
 
 import java.util.HashMap;
 import java.util.Map;
 
-public class MapGenerator implements Generator<Map<String,String>> {
+public class MapGenerator extends RandomGenerator<Map<String,String>> {
 
     private LineExtractGenerator paramGenerator;
-    private IntegerDistribution sizeDistribution;
-    private MersenneTwister rng = new MersenneTwister(System.nanoTime());
+    private int sizeDistribution;
 
     public MapGenerator(String paramFile, int sizeDistribution) {
-        this.sizeDistribution = new UniformIntegerDistribution(0,sizeDistribution-1);
+        super("MapGenerator:" + paramFile + ":" + sizeDistribution);
+        this.sizeDistribution = sizeDistribution;
         this.paramGenerator = new LineExtractGenerator(paramFile);
     }
 
@@ -42,11 +40,12 @@ public class MapGenerator implements Generator<Map<String,String>> {
     }
 
     @Override
-    public Map<String, String> get() {
-        int mapSize = sizeDistribution.sample();
+    public Map<String, String> apply(long cycle) {
+        int mapSize = RandomSource.bounded(RandomSource.at(seed, cycle), sizeDistribution);
         Map<String,String> map = new HashMap<>();
         for (int idx=0;idx<mapSize;idx++) {
-            map.put(paramGenerator.get(),paramGenerator.get());
+            map.put(paramGenerator.apply(RandomSource.at(seed, cycle, idx * 2)),
+                    paramGenerator.apply(RandomSource.at(seed, cycle, idx * 2 + 1)));
         }
         return map;
     }
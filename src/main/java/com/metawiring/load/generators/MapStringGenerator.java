@@ -18,22 +18,20 @@
 
 package com.metawiring.load.generators;
 
-import com.metawiring.load.generator.Generator;
-import org.apache.commons.math3.distribution.IntegerDistribution;
-import org.apache.commons.math3.distribution.UniformIntegerDistribution;
-import org.apache.commons.math3.random.MersenneTwister;
+import com.metawiring.load.generator.RandomGenerator;
+import com.metawiring.load.generator.RandomSource;
 
 import java.util.HashMap;
 import java.util.Map;
 
-public class MapStringGenerator implements Generator<String> {
+public class MapStringGenerator extends RandomGenerator<String> {
 
     private LineExtractGenerator paramGenerator;
-    private IntegerDistribution sizeDistribution;
-    private MersenneTwister rng = new MersenneTwister(System.nanoTime());
+    private int sizeDistribution;
 
     public MapStringGenerator(String paramFile, int sizeDistribution) {
-        this.sizeDistribution = new UniformIntegerDistribution(0,sizeDistribution-1);
+        super("MapStringGenerator:" + paramFile + ":" + sizeDistribution);
+        this.sizeDistribution = sizeDistribution;
         this.paramGenerator = new LineExtractGenerator(paramFile);
     }
 
@@ -42,12 +40,12 @@ public class MapStringGenerator implements Generator<String> {
     }
 
     @Override
-    public String get() {
-        int mapSize = sizeDistribution.sample();
+    public String apply(long cycle) {
+        int mapSize = RandomSource.bounded(RandomSource.at(seed, cycle), sizeDistribution);
         StringBuilder sb = new StringBuilder(100);
         for (int idx=0;idx<mapSize;idx++) {
-            sb.append(paramGenerator.get()).append(":");
-            sb.append(paramGenerator.get()).append(";");
+            sb.append(paramGenerator.apply(RandomSource.at(seed, cycle, idx * 2))).append(":");
+            sb.append(paramGenerator.apply(RandomSource.at(seed, cycle, idx * 2 + 1))).append(";");
         }
         return sb.toString();
     }
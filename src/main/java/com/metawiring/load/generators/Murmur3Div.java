@@ -18,11 +18,9 @@
 
 package com.metawiring.load.generators;
 
-import com.metawiring.load.generator.FastForwardableGenerator;
-import de.greenrobot.common.hash.Murmur3F;
+import com.metawiring.load.generator.LongGenerator;
 
-public class Murmur3Div implements FastForwardableGenerator<Long> {
-    private Murmur3F murmur3f = new Murmur3F();
+public class Murmur3Div implements LongGenerator {
     private LongDivSequenceGenerator longDivSequenceGenerator;
 
     public Murmur3Div(long divisor) {
@@ -33,14 +31,16 @@ public class Murmur3Div implements FastForwardableGenerator<Long> {
     }
 
     @Override
-    public void fastForward(long fastForwardTo) {
-        murmur3f = new Murmur3F((int) (fastForwardTo % Integer.MAX_VALUE));
+    public long applyAsLong(long cycle) {
+        return fmix64(longDivSequenceGenerator.applyAsLong(cycle));
     }
 
-    @Override
-    public Long get() {
-        long divided= longDivSequenceGenerator.get();
-        murmur3f.update((int) (divided % Integer.MAX_VALUE));
-        return murmur3f.getValue();
+    /**
+     * The 64 bit finalizer of Murmur3, which hashes a value without any state or allocation.
+     */
+    public static long fmix64(long k) {
+        k = (k ^ (k >>> 33)) * 0xff51afd7ed558ccdL;
+        k = (k ^ (k >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return k ^ (k >>> 33);
     }
 }
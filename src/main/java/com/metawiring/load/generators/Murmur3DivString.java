@@ -18,12 +18,10 @@
 
 package com.metawiring.load.generators;
 
-import com.metawiring.load.generator.FastForwardableGenerator;
-import de.greenrobot.common.hash.Murmur3F;
+import com.metawiring.load.generator.CycleGenerator;
 
-public class Murmur3DivString implements FastForwardableGenerator<String> {
+public class Murmur3DivString implements CycleGenerator<String> {
 
-    private Murmur3F murmur3f = new Murmur3F();
     private LongDivSequenceGenerator longDivSequenceGenerator;
 
     public Murmur3DivString(long divisor) {
@@ -34,14 +32,7 @@ public class Murmur3DivString implements FastForwardableGenerator<String> {
     }
 
     @Override
-    public void fastForward(long fastForwardTo) {
-        murmur3f = new Murmur3F((int) (fastForwardTo % Integer.MAX_VALUE));
-    }
-
-    @Override
-    public String get() {
-        long divided= longDivSequenceGenerator.get();
-        murmur3f.update((int) (divided % Integer.MAX_VALUE));
-        return String.valueOf(murmur3f.getValue());
+    public String apply(long cycle) {
+        return String.valueOf(Murmur3Div.fmix64(longDivSequenceGenerator.applyAsLong(cycle)));
     }
 }
@@ -18,29 +18,27 @@
 
 package com.metawiring.load.generators;
 
-import com.metawiring.load.generator.Generator;
-import org.apache.commons.math3.distribution.IntegerDistribution;
-import org.apache.commons.math3.distribution.UniformIntegerDistribution;
+import com.metawiring.load.generator.RandomGenerator;
+import com.metawiring.load.generator.RandomSource;
 import uk.ydubey.formatter.numtoword.NumberInWordsFormatter;
 
-public class NamedNumberGenerator implements Generator<String> {
+public class NamedNumberGenerator extends RandomGenerator<String> {
 
     private final int popsize;
-    private IntegerDistribution distribution;
     private final NumberInWordsFormatter formatter = NumberInWordsFormatter.getInstance();
 
     public NamedNumberGenerator(int popsize) {
+        super("NamedNumberGenerator:" + popsize);
         this.popsize = popsize;
-        distribution = new UniformIntegerDistribution(1,this.popsize+1);
     }
     public NamedNumberGenerator(String popsize) {
         this(Integer.valueOf(popsize));
     }
 
     @Override
-    public String get() {
-        int[] value = distribution.sample(1);
-        String result = formatter.format(value[0]);
+    public String apply(long cycle) {
+        int value = 1 + RandomSource.bounded(RandomSource.at(seed, cycle), popsize + 1);
+        String result = formatter.format(value);
         return result;
     }
 
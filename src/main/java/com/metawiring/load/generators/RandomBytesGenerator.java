@@ -18,24 +18,34 @@
 
 package com.metawiring.load.generators;
 
-import com.metawiring.load.generator.Generator;
-import org.apache.commons.math3.random.MersenneTwister;
+import com.metawiring.load.generator.RandomGenerator;
+import com.metawiring.load.generator.RandomSource;
 
 import java.nio.ByteBuffer;
 
-public class RandomBytesGenerator implements Generator<ByteBuffer> {
+public class RandomBytesGenerator extends RandomGenerator<ByteBuffer> {
 
-    private MersenneTwister twister = new MersenneTwister();
     private int length;
 
     public RandomBytesGenerator(int length) {
+        super("RandomBytesGenerator:" + length);
         this.length = length;
     }
+    public RandomBytesGenerator(String length) {
+        this(Integer.valueOf(length));
+    }
 
     @Override
-    public ByteBuffer get() {
+    public ByteBuffer apply(long cycle) {
         byte[] buffer = new byte[length];
-        twister.nextBytes(buffer);
+        long random = 0L;
+        for (int idx = 0; idx < length; idx++) {
+            if ((idx & 7) == 0) {
+                random = RandomSource.at(seed, cycle, idx >>> 3);
+            }
+            buffer[idx] = (byte) random;
+            random >>>= 8;
+        }
         return ByteBuffer.wrap(buffer);
     }
 }
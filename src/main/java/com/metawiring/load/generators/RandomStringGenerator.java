@@ -18,14 +18,17 @@
 
 package com.metawiring.load.generators;
 
-import com.metawiring.load.generator.Generator;
-import org.apache.commons.math3.random.MersenneTwister;
+import com.metawiring.load.generator.RandomGenerator;
+import com.metawiring.load.generator.RandomSource;
 
-public class RandomStringGenerator implements Generator<String> {
-    private MersenneTwister theTwister = new MersenneTwister(System.nanoTime());
+public class RandomStringGenerator extends RandomGenerator<String> {
+
+    public RandomStringGenerator() {
+        super("RandomStringGenerator");
+    }
 
     @Override
-    public String get() {
-        return String.valueOf(Math.abs(theTwister.nextLong()));
+    public String apply(long cycle) {
+        return String.valueOf(RandomSource.at(seed, cycle) >>> 1);
     }
 }
@@ -18,16 +18,16 @@
 
 package com.metawiring.load.generators;
 
-import com.metawiring.load.generator.Generator;
-import org.apache.commons.math3.random.MersenneTwister;
+import com.metawiring.load.generator.RandomGenerator;
+import com.metawiring.load.generator.RandomSource;
 
-public class RandomStringRangeGenerator implements Generator<String> {
-    private MersenneTwister theTwister = new MersenneTwister(System.nanoTime());
+public class RandomStringRangeGenerator extends RandomGenerator<String> {
     private long min;
     private long max;
     private long length;
 
     public RandomStringRangeGenerator(long min, long max) {
+        super("RandomStringRangeGenerator:" + min + ":" + max);
         this.min = min;
         this.max = max;
         this.length = max - min;
@@ -38,9 +38,8 @@ public class RandomStringRangeGenerator implements Generator<String> {
     }
 
     @Override
-    public String get() {
-        long value = Math.abs(theTwister.nextLong());
-        value %= length;
+    public String apply(long cycle) {
+        long value = RandomSource.bounded(RandomSource.at(seed, cycle), length);
         value += min;
         return String.valueOf(value);
     }
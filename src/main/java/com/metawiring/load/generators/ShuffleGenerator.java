@@ -0,0 +1,83 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package com.metawiring.load.generators;
+
+import com.metawiring.load.generator.LongGenerator;
+import com.metawiring.load.generator.RandomGenerator;
+import com.metawiring.load.generator.RandomSource;
+
+/**
+ * A random looking permutation of the keys from 0 to size-1, where each cycle maps to one key, and every key
+ * is visited exactly once in any size consecutive cycles. The key for a cycle is the cycle modulo the size,
+ * passed through a keyed Feistel network over the smallest even number of bits which can hold the size.
+ * Values which fall outside of the size are passed through again until they fall inside, which is called
+ * cycle-walking. Nothing is stored besides the round keys, so any size can be used, and it works with any range
+ * of cycles, such as those given to each thread with --splitcycles.
+ */
+public class ShuffleGenerator extends RandomGenerator<Long> implements LongGenerator {
+
+    private final static int rounds = 4;
+
+    private final long size;
+    private final int halfBits;
+    private final long halfMask;
+    private final long[] roundKeys = new long[rounds];
+
+    public ShuffleGenerator(long size) {
+        super("ShuffleGenerator:" + size);
+        if (size < 1L) {
+            throw new RuntimeException("The size must be at least 1 for " + getClass().getSimpleName());
+        }
+        this.size = size;
+        int bits = Math.max(2, 64 - Long.numberOfLeadingZeros(size - 1));
+        this.halfBits = (bits + 1) / 2;
+        this.halfMask = (1L << halfBits) - 1;
+        for (int round = 0; round < rounds; round++) {
+            roundKeys[round] = RandomSource.at(seed, round);
+        }
+    }
+    public ShuffleGenerator(String size) {
+        this(Long.valueOf(size));
+    }
+
+    @Override
+    public long applyAsLong(long cycle) {
+        long value = Math.floorMod(cycle, size);
+        do {
+            value = permute(value);
+        } while (value >= size);
+        return value;
+    }
+
+    private long permute(long value) {
+        long left = value >>> halfBits;
+        long right = value & halfMask;
+        for (int round = 0; round < rounds; round++) {
+            long next = left ^ (RandomSource.mix64(right ^ roundKeys[round]) & halfMask);
+            left = right;
+            right = next;
+        }
+        return (left << halfBits) | right;
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + ":" + size;
+    }
+}
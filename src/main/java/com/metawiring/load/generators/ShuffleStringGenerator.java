@@ -0,0 +1,44 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package com.metawiring.load.generators;
+
+import com.metawiring.load.generator.RandomGenerator;
+
+/**
+ * The same keys as {@link ShuffleGenerator}, as strings.
+ */
+public class ShuffleStringGenerator extends RandomGenerator<String> {
+
+    private final ShuffleGenerator shuffleGenerator;
+
+    public ShuffleStringGenerator(String size) {
+        super("ShuffleStringGenerator:" + size);
+        this.shuffleGenerator = new ShuffleGenerator(size);
+    }
+
+    @Override
+    public String apply(long cycle) {
+        return String.valueOf(shuffleGenerator.applyAsLong(cycle));
+    }
+
+    public String toString() {
+        return shuffleGenerator.toString().replace("ShuffleGenerator", getClass().getSimpleName());
+    }
+}
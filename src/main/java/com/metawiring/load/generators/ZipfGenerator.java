@@ -0,0 +1,57 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package com.metawiring.load.generators;
+
+import com.metawiring.load.generator.LongGenerator;
+import com.metawiring.load.generator.RandomGenerator;
+
+/**
+ * Zipf distributed keys from min to max, inclusive. The key min is the most popular, min+1 is the next most
+ * popular, and so on. With an exponent of 0.99, nearly 90% of the accesses to a billion keys go to the most
+ * popular 10% of them. Samples are taken in constant time, so the key space may be as large as 10^10.
+ */
+public class ZipfGenerator extends RandomGenerator<Long> implements LongGenerator {
+
+    private final long min;
+    private final long max;
+    private final ZipfSampler sampler;
+
+    public ZipfGenerator(long min, long max, double exponent) {
+        super("ZipfGenerator:" + min + ":" + max + ":" + exponent);
+        if (max < min) {
+            throw new RuntimeException("The max key must not be less than the min key for " + getClass().getSimpleName());
+        }
+        this.min = min;
+        this.max = max;
+        this.sampler = new ZipfSampler(exponent);
+    }
+    public ZipfGenerator(String min, String max, String exponent) {
+        this(Long.valueOf(min), Long.valueOf(max), Double.valueOf(exponent));
+    }
+
+    @Override
+    public long applyAsLong(long cycle) {
+        return min + sampler.sample(seed, cycle, max - min + 1) - 1;
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + ":" + min + ":" + max + ":" + sampler.getExponent();
+    }
+}
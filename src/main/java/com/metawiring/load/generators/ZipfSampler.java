@@ -0,0 +1,113 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.generators;
+
+import com.metawiring.load.generator.RandomSource;
+
+/**
+ * Samples Zipf distributed ranks from 1 to n in constant expected time, without any tables, by
+ * rejection-inversion, as described by Hörmann and Derflinger in "Rejection-inversion to generate variates
+ * from monotone discrete distributions". Fewer than 1.1 draws are needed per sample on average, so it works
+ * for any number of elements, up to 10^10 and beyond.
+ *
+ * <p>The number of elements is given to each sample, so that it can change from one cycle to the next, as it
+ * does for the latest distribution.</p>
+ */
+final class ZipfSampler {
+
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double squeeze;
+
+    ZipfSampler(double exponent) {
+        if (exponent <= 0.0D) {
+            throw new RuntimeException("The Zipf exponent must be greater than 0, not " + exponent);
+        }
+        this.exponent = exponent;
+        this.hIntegralX1 = hIntegral(1.5D) - 1.0D;
+        this.squeeze = 2.0D - hIntegralInverse(hIntegral(2.5D) - h(2.0D));
+    }
+
+    /**
+     * @param seed - the seed of the generator
+     * @param cycle - the cycle to sample for
+     * @param elements - the number of ranks, at least 1
+     * @return a rank from 1 to elements, where rank 1 is the most likely
+     */
+    long sample(long seed, long cycle, long elements) {
+        if (elements <= 1L) {
+            return 1L;
+        }
+        double hIntegralElements = hIntegral(elements + 0.5D);
+        for (int draw = 0; ; draw++) {
+            double u = hIntegralElements + RandomSource.unit(RandomSource.at(seed, cycle, draw)) * (hIntegralX1 - hIntegralElements);
+            double x = hIntegralInverse(u);
+            long k = (long) (x + 0.5D);
+            if (k < 1L) {
+                k = 1L;
+            } else if (k > elements) {
+                k = elements;
+            }
+            if (k - x <= squeeze || u >= hIntegral(k + 0.5D) - h(k)) {
+                return k;
+            }
+        }
+    }
+
+    double getExponent() {
+        return exponent;
+    }
+
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    private double hIntegral(double x) {
+        double logX = Math.log(x);
+        return helper2((1.0D - exponent) * logX) * logX;
+    }
+
+    private double hIntegralInverse(double x) {
+        double t = x * (1.0D - exponent);
+        if (t < -1.0D) {
+            t = -1.0D;
+        }
+        return Math.exp(helper1(t) * x);
+    }
+
+    /**
+     * @return log(1+x)/x, which is also accurate near 0
+     */
+    private static double helper1(double x) {
+        if (Math.abs(x) > 1e-8) {
+            return Math.log1p(x) / x;
+        }
+        return 1.0D - x * (0.5D - x * (1.0D / 3.0D - 0.25D * x));
+    }
+
+    /**
+     * @return (exp(x)-1)/x, which is also accurate near 0
+     */
+    private static double helper2(double x) {
+        if (Math.abs(x) > 1e-8) {
+            return Math.expm1(x) / x;
+        }
+        return 1.0D + x * 0.5D * (1.0D + x * (1.0D / 3.0D) * (1.0D + 0.25D * x));
+    }
+}
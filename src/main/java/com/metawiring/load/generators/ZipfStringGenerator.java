@@ -0,0 +1,44 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+
+package com.metawiring.load.generators;
+
+import com.metawiring.load.generator.RandomGenerator;
+
+/**
+ * The same keys as {@link ZipfGenerator}, as strings.
+ */
+public class ZipfStringGenerator extends RandomGenerator<String> {
+
+    private final ZipfGenerator zipfGenerator;
+
+    public ZipfStringGenerator(String min, String max, String exponent) {
+        super("ZipfStringGenerator:" + min + ":" + max + ":" + exponent);
+        this.zipfGenerator = new ZipfGenerator(min, max, exponent);
+    }
+
+    @Override
+    public String apply(long cycle) {
+        return String.valueOf(zipfGenerator.applyAsLong(cycle));
+    }
+
+    public String toString() {
+        return zipfGenerator.toString().replace("ZipfGenerator", getClass().getSimpleName());
+    }
+}
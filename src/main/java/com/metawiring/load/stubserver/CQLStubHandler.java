@@ -0,0 +1,432 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.stubserver;
+
+import com.datastax.driver.core.DataType;
+import com.metawiring.load.core.LoopbackSchema;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.ReferenceCountUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers the requests of one connection. Frames arrive whole, from the frame decoder in front of this handler.
+ * Responses are flushed once per read from the socket, unless they are delayed.
+ */
+class CQLStubHandler extends ChannelInboundHandlerAdapter {
+    private final static Logger logger = LoggerFactory.getLogger(CQLStubHandler.class);
+
+    private final static int HEADER_LENGTH = 9;
+
+    private final static int ERROR = 0x00;
+    private final static int STARTUP = 0x01;
+    private final static int READY = 0x02;
+    private final static int OPTIONS = 0x05;
+    private final static int SUPPORTED = 0x06;
+    private final static int QUERY = 0x07;
+    private final static int RESULT = 0x08;
+    private final static int PREPARE = 0x09;
+    private final static int EXECUTE = 0x0A;
+    private final static int REGISTER = 0x0B;
+    private final static int BATCH = 0x0D;
+
+    private final static int RESULT_VOID = 0x0001;
+    private final static int RESULT_ROWS = 0x0002;
+    private final static int RESULT_SET_KEYSPACE = 0x0003;
+    private final static int RESULT_PREPARED = 0x0004;
+
+    private final static int ERROR_PROTOCOL = 0x000A;
+    private final static int ERROR_INVALID = 0x2200;
+    private final static int ERROR_UNPREPARED = 0x2500;
+
+    private final static int FLAG_COMPRESSED = 0x01;
+    private final static int FLAG_CUSTOM_PAYLOAD = 0x04;
+    private final static int METADATA_GLOBAL_TABLES_SPEC = 0x0001;
+    private final static int METADATA_NO_METADATA = 0x0004;
+
+    private final static UUID hostId = UUID.randomUUID();
+    private final static UUID schemaVersion = UUID.randomUUID();
+
+    private final CQLStubServer server;
+    private String keyspace = "";
+
+    CQLStubHandler(CQLStubServer server) {
+        this.server = server;
+    }
+
+    /**
+     * What the server keeps of a prepared statement, to answer its executions.
+     */
+    static class PreparedQuery {
+        final String query;
+        final boolean select;
+        final boolean schemaChange;
+
+        PreparedQuery(String query, boolean select) {
+            this.query = query;
+            this.select = select;
+            this.schemaChange = LoopbackSchema.isSchemaChange(query);
+        }
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        ByteBuf frame = (ByteBuf) msg;
+        try {
+            int version = frame.readByte() & 0x7F;
+            int flags = frame.readByte();
+            int stream = frame.readShort();
+            int opcode = frame.readByte();
+            frame.skipBytes(4);
+
+            if (version < 3 || version > 4) {
+                respond(ctx, error(ctx, Math.min(Math.max(version, 3), 4), stream, ERROR_PROTOCOL,
+                        "Invalid or unsupported protocol version (" + version + "); supported versions are (3/v3, 4/v4)"), 0L);
+                return;
+            }
+            if ((flags & FLAG_COMPRESSED) != 0) {
+                respond(ctx, error(ctx, version, stream, ERROR_PROTOCOL, "Compression is not supported"), 0L);
+                return;
+            }
+            if ((flags & FLAG_CUSTOM_PAYLOAD) != 0) {
+                int entries = frame.readUnsignedShort();
+                for (int entry = 0; entry < entries; entry++) {
+                    frame.skipBytes(frame.readUnsignedShort());
+                    int length = frame.readInt();
+                    frame.skipBytes(Math.max(length, 0));
+                }
+            }
+
+            server.countRequest();
+            switch (opcode) {
+                case STARTUP:
+                case REGISTER:
+                    respond(ctx, header(ctx, version, stream, READY, 0), 0L);
+                    break;
+                case OPTIONS:
+                    respond(ctx, supported(ctx, version, stream), 0L);
+                    break;
+                case QUERY:
+                    respond(ctx, query(ctx, version, stream, readLongString(frame)), server.nextLatencyMicros());
+                    break;
+                case PREPARE:
+                    respond(ctx, prepare(ctx, version, stream, readLongString(frame)), 0L);
+                    break;
+                case EXECUTE:
+                    respond(ctx, execute(ctx, version, stream, readShortBytes(frame)), server.nextLatencyMicros());
+                    break;
+                case BATCH:
+                    respond(ctx, voidResult(ctx, version, stream), server.nextLatencyMicros());
+                    break;
+                default:
+                    respond(ctx, error(ctx, version, stream, ERROR_PROTOCOL, "Unsupported opcode " + opcode), 0L);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Error while answering a request", e);
+            ctx.close();
+        } finally {
+            ReferenceCountUtil.release(frame);
+        }
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        ctx.flush();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        logger.debug("Closing connection from " + ctx.channel().remoteAddress() + ": " + cause);
+        ctx.close();
+    }
+
+    private void respond(ChannelHandlerContext ctx, ByteBuf response, long latencyMicros) {
+        response.setInt(5, response.readableBytes() - HEADER_LENGTH);
+        if (latencyMicros > 0L) {
+            ctx.channel().eventLoop().schedule(() -> ctx.writeAndFlush(response), latencyMicros, TimeUnit.MICROSECONDS);
+        } else {
+            ctx.write(response);
+        }
+    }
+
+    private ByteBuf query(ChannelHandlerContext ctx, int version, int stream, String query) {
+        String statement = query.trim().toLowerCase(Locale.ROOT);
+        if (statement.startsWith("use ")) {
+            keyspace = unquote(query.trim().substring(4).replace(";", "").trim());
+            ByteBuf response = result(ctx, version, stream, RESULT_SET_KEYSPACE);
+            writeString(response, keyspace);
+            return response;
+        }
+        if (statement.startsWith("select")) {
+            return statement.contains("system.local") ? localRow(ctx, version, stream) : emptyRows(ctx, version, stream);
+        }
+        server.getSchema().learn(query);
+        return voidResult(ctx, version, stream);
+    }
+
+    private ByteBuf prepare(ChannelHandlerContext ctx, int version, int stream, String query) {
+        LoopbackSchema.Variables variables = server.getSchema().variablesOf(query);
+        for (int idx = 0; idx < variables.types.size(); idx++) {
+            if (variables.types.get(idx) == LoopbackSchema.UNKNOWN) {
+                String message = variables.knownTable
+                        ? "Undefined column name " + variables.names.get(idx)
+                        : "unconfigured table " + variables.table;
+                return error(ctx, version, stream, ERROR_INVALID, message);
+            }
+        }
+
+        byte[] id = md5(query);
+        server.getPreparedQueries().putIfAbsent(ByteBuffer.wrap(id), new PreparedQuery(query, variables.select));
+
+        ByteBuf response = result(ctx, version, stream, RESULT_PREPARED);
+        writeShortBytes(response, id);
+        response.writeInt(METADATA_GLOBAL_TABLES_SPEC);
+        response.writeInt(variables.names.size());
+        if (version >= 4) {
+            response.writeInt(0);
+        }
+        writeString(response, (variables.keyspace != null) ? variables.keyspace : keyspace);
+        writeString(response, (variables.table != null) ? variables.table : "");
+        for (int idx = 0; idx < variables.names.size(); idx++) {
+            writeString(response, variables.names.get(idx));
+            writeType(response, variables.types.get(idx));
+        }
+        response.writeInt(METADATA_NO_METADATA);
+        response.writeInt(0);
+        return response;
+    }
+
+    private ByteBuf execute(ChannelHandlerContext ctx, int version, int stream, byte[] id) {
+        PreparedQuery preparedQuery = server.getPreparedQueries().get(ByteBuffer.wrap(id));
+        if (preparedQuery == null) {
+            ByteBuf response = error(ctx, version, stream, ERROR_UNPREPARED, "Prepared query with ID is not prepared");
+            writeShortBytes(response, id);
+            return response;
+        }
+        if (preparedQuery.select) {
+            return emptyRows(ctx, version, stream);
+        }
+        if (preparedQuery.schemaChange) {
+            server.getSchema().learn(preparedQuery.query);
+        }
+        return voidResult(ctx, version, stream);
+    }
+
+    private ByteBuf supported(ChannelHandlerContext ctx, int version, int stream) {
+        ByteBuf response = header(ctx, version, stream, SUPPORTED, 32);
+        response.writeShort(2);
+        writeString(response, "CQL_VERSION");
+        response.writeShort(1);
+        writeString(response, "3.4.0");
+        writeString(response, "COMPRESSION");
+        response.writeShort(0);
+        return response;
+    }
+
+    private ByteBuf voidResult(ChannelHandlerContext ctx, int version, int stream) {
+        return result(ctx, version, stream, RESULT_VOID);
+    }
+
+    private ByteBuf emptyRows(ChannelHandlerContext ctx, int version, int stream) {
+        ByteBuf response = result(ctx, version, stream, RESULT_ROWS);
+        response.writeInt(0);
+        response.writeInt(0);
+        response.writeInt(0);
+        return response;
+    }
+
+    /**
+     * The row of system.local, which the driver reads the cluster name, the partitioner, the location and the
+     * version of the node from, when it connects.
+     */
+    private ByteBuf localRow(ChannelHandlerContext ctx, int version, int stream) {
+        byte[] address = ((InetSocketAddress) ctx.channel().localAddress()).getAddress().getAddress();
+        ByteBuf response = result(ctx, version, stream, RESULT_ROWS);
+        String[] names = {"key", "cluster_name", "data_center", "rack", "release_version", "cql_version",
+                "native_protocol_version", "partitioner", "host_id", "schema_version", "broadcast_address",
+                "listen_address", "rpc_address", "tokens"};
+        DataType[] types = {DataType.varchar(), DataType.varchar(), DataType.varchar(), DataType.varchar(),
+                DataType.varchar(), DataType.varchar(), DataType.varchar(), DataType.varchar(), DataType.uuid(),
+                DataType.uuid(), DataType.inet(), DataType.inet(), DataType.inet(), DataType.set(DataType.varchar())};
+
+        response.writeInt(METADATA_GLOBAL_TABLES_SPEC);
+        response.writeInt(names.length);
+        writeString(response, "system");
+        writeString(response, "local");
+        for (int idx = 0; idx < names.length; idx++) {
+            writeString(response, names[idx]);
+            writeType(response, types[idx]);
+        }
+
+        response.writeInt(1);
+        writeValue(response, utf8("local"));
+        writeValue(response, utf8("CQL stub server"));
+        writeValue(response, utf8("datacenter1"));
+        writeValue(response, utf8("rack1"));
+        writeValue(response, utf8("3.0.0"));
+        writeValue(response, utf8("3.4.0"));
+        writeValue(response, utf8(String.valueOf(version)));
+        writeValue(response, utf8("org.apache.cassandra.dht.Murmur3Partitioner"));
+        writeValue(response, uuid(hostId));
+        writeValue(response, uuid(schemaVersion));
+        writeValue(response, address);
+        writeValue(response, address);
+        writeValue(response, address);
+        byte[] token = utf8("0");
+        response.writeInt(4 + 4 + token.length);
+        response.writeInt(1);
+        writeValue(response, token);
+        return response;
+    }
+
+    private ByteBuf error(ChannelHandlerContext ctx, int version, int stream, int code, String message) {
+        ByteBuf response = header(ctx, version, stream, ERROR, 64);
+        response.writeInt(code);
+        writeString(response, message);
+        return response;
+    }
+
+    private ByteBuf result(ChannelHandlerContext ctx, int version, int stream, int kind) {
+        ByteBuf response = header(ctx, version, stream, RESULT, 16);
+        response.writeInt(kind);
+        return response;
+    }
+
+    private ByteBuf header(ChannelHandlerContext ctx, int version, int stream, int opcode, int bodyLength) {
+        ByteBuf response = ctx.alloc().ioBuffer(HEADER_LENGTH + bodyLength);
+        response.writeByte(0x80 | version);
+        response.writeByte(0);
+        response.writeShort(stream);
+        response.writeByte(opcode);
+        response.writeInt(0);
+        return response;
+    }
+
+    /**
+     * Write a type as an [option], with the ids of protocol version 3 and later.
+     */
+    private static void writeType(ByteBuf buf, DataType type) {
+        switch (type.getName()) {
+            case ASCII: buf.writeShort(0x01); break;
+            case BIGINT: buf.writeShort(0x02); break;
+            case BLOB: buf.writeShort(0x03); break;
+            case BOOLEAN: buf.writeShort(0x04); break;
+            case COUNTER: buf.writeShort(0x05); break;
+            case DECIMAL: buf.writeShort(0x06); break;
+            case DOUBLE: buf.writeShort(0x07); break;
+            case FLOAT: buf.writeShort(0x08); break;
+            case INT: buf.writeShort(0x09); break;
+            case TIMESTAMP: buf.writeShort(0x0B); break;
+            case UUID: buf.writeShort(0x0C); break;
+            case TEXT:
+            case VARCHAR: buf.writeShort(0x0D); break;
+            case VARINT: buf.writeShort(0x0E); break;
+            case TIMEUUID: buf.writeShort(0x0F); break;
+            case INET: buf.writeShort(0x10); break;
+            case DATE: buf.writeShort(0x11); break;
+            case TIME: buf.writeShort(0x12); break;
+            case SMALLINT: buf.writeShort(0x13); break;
+            case TINYINT: buf.writeShort(0x14); break;
+            case LIST:
+                buf.writeShort(0x20);
+                writeType(buf, type.getTypeArguments().get(0));
+                break;
+            case MAP:
+                buf.writeShort(0x21);
+                List<DataType> arguments = type.getTypeArguments();
+                writeType(buf, arguments.get(0));
+                writeType(buf, arguments.get(1));
+                break;
+            case SET:
+                buf.writeShort(0x22);
+                writeType(buf, type.getTypeArguments().get(0));
+                break;
+            default:
+                buf.writeShort(0x00);
+                writeString(buf, type.toString());
+        }
+    }
+
+    private static String readLongString(ByteBuf buf) {
+        int length = buf.readInt();
+        String string = buf.toString(buf.readerIndex(), length, StandardCharsets.UTF_8);
+        buf.skipBytes(length);
+        return string;
+    }
+
+    private static byte[] readShortBytes(ByteBuf buf) {
+        byte[] bytes = new byte[buf.readUnsignedShort()];
+        buf.readBytes(bytes);
+        return bytes;
+    }
+
+    private static void writeString(ByteBuf buf, String string) {
+        byte[] bytes = utf8(string);
+        buf.writeShort(bytes.length);
+        buf.writeBytes(bytes);
+    }
+
+    private static void writeShortBytes(ByteBuf buf, byte[] bytes) {
+        buf.writeShort(bytes.length);
+        buf.writeBytes(bytes);
+    }
+
+    private static void writeValue(ByteBuf buf, byte[] bytes) {
+        buf.writeInt(bytes.length);
+        buf.writeBytes(bytes);
+    }
+
+    private static byte[] utf8(String string) {
+        return string.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] uuid(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    private static byte[] md5(String query) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(utf8(query));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String unquote(String name) {
+        if (name.startsWith("\"") && name.endsWith("\"") && name.length() > 1) {
+            return name.substring(1, name.length() - 1);
+        }
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.stubserver;
+
+import com.metawiring.load.core.LoopbackSchema;
+import com.metawiring.load.generator.Generator;
+import com.metawiring.load.generator.GeneratorInstantiator;
+import com.metawiring.load.generator.LongGenerator;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import joptsimple.OptionParser;
+import joptsimple.OptionSet;
+import joptsimple.OptionSpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A server which speaks enough of the CQL native protocol, versions 3 and 4, for the driver to connect to it and for
+ * activities to run against it, so that the cost of the driver, netty and serialization can be measured without a
+ * cluster. Writes are acknowledged and reads return no rows, at once or after a latency in microseconds from a
+ * generator.
+ * <p>
+ * Like {@link com.metawiring.load.core.LoopbackSession}, the server knows the tables which have been created through
+ * it, and prepared statements for other tables fail as unconfigured. Run activities with --createschema.
+ * <p>
+ * To run it on its own: java -cp cqltestclient.jar com.metawiring.load.stubserver.CQLStubServer --port=9042
+ */
+public class CQLStubServer implements AutoCloseable {
+    private final static Logger logger = LoggerFactory.getLogger(CQLStubServer.class);
+
+    private final static int maxFrameLength = 256 * 1024 * 1024;
+
+    private final String host;
+    private final int port;
+    private final int threads;
+    private final LongGenerator latencyMicros;
+    private final LongAdder requests = new LongAdder();
+    private final LoopbackSchema schema = new LoopbackSchema();
+    private final ConcurrentMap<ByteBuffer, CQLStubHandler.PreparedQuery> preparedQueries = new ConcurrentHashMap<>();
+
+    private EventLoopGroup acceptGroup;
+    private EventLoopGroup ioGroup;
+    private Channel serverChannel;
+
+    /**
+     * @param host        - the address to listen on
+     * @param port        - the port to listen on, or 0 for any free port
+     * @param threads     - the number of IO threads, or 0 for the netty default
+     * @param latencySpec - a generator spec for the latency of each query in microseconds, or null or "0" to
+     *                    respond at once
+     */
+    public CQLStubServer(String host, int port, int threads, String latencySpec) {
+        this.host = host;
+        this.port = port;
+        this.threads = threads;
+        if (latencySpec == null || latencySpec.isEmpty() || latencySpec.equals("0")) {
+            this.latencyMicros = null;
+        } else {
+            Generator<?> generator = new GeneratorInstantiator().getGenerator(latencySpec);
+            if (!(generator instanceof LongGenerator)) {
+                throw new RuntimeException("The stub server latency must be a long generator, not " + generator);
+            }
+            this.latencyMicros = (LongGenerator) generator;
+        }
+    }
+
+    public synchronized CQLStubServer start() {
+        if (serverChannel != null) {
+            throw new RuntimeException("The stub server is already started on " + serverChannel.localAddress());
+        }
+        acceptGroup = new NioEventLoopGroup(1);
+        ioGroup = new NioEventLoopGroup(threads);
+        ServerBootstrap bootstrap = new ServerBootstrap()
+                .group(acceptGroup, ioGroup)
+                .channel(NioServerSocketChannel.class)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel channel) {
+                        channel.pipeline()
+                                .addLast(new LengthFieldBasedFrameDecoder(maxFrameLength, 5, 4, 0, 0))
+                                .addLast(new CQLStubHandler(CQLStubServer.this));
+                    }
+                });
+        serverChannel = bootstrap.bind(host, port).syncUninterruptibly().channel();
+        logger.info("CQL stub server listening on " + serverChannel.localAddress()
+                + (latencyMicros != null ? ", responding after " + latencyMicros + " microseconds" : ""));
+        return this;
+    }
+
+    /**
+     * @return the port which the server is listening on, which is useful when it was started on port 0
+     */
+    public int getPort() {
+        return ((InetSocketAddress) serverChannel.localAddress()).getPort();
+    }
+
+    /**
+     * @return the number of requests which have been answered
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (serverChannel == null) {
+            return;
+        }
+        serverChannel.close().syncUninterruptibly();
+        acceptGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+        ioGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+        serverChannel = null;
+        logger.info("CQL stub server stopped after " + getRequestCount() + " requests");
+    }
+
+    LoopbackSchema getSchema() {
+        return schema;
+    }
+
+    ConcurrentMap<ByteBuffer, CQLStubHandler.PreparedQuery> getPreparedQueries() {
+        return preparedQueries;
+    }
+
+    /**
+     * @return the latency of the next query in microseconds, or 0 to respond at once
+     */
+    long nextLatencyMicros() {
+        return (latencyMicros != null) ? latencyMicros.applyAsLong(ThreadLocalRandom.current().nextLong(Long.MAX_VALUE)) : 0L;
+    }
+
+    void countRequest() {
+        requests.increment();
+    }
+
+    public static void main(String[] args) {
+        OptionParser parser = new OptionParser();
+        OptionSpec<String> host = parser.accepts("host").withRequiredArg().ofType(String.class)
+                .defaultsTo("localhost").describedAs("the address to listen on");
+        OptionSpec<Integer> port = parser.accepts("port").withRequiredArg().ofType(Integer.class)
+                .defaultsTo(9042).describedAs("the port to listen on");
+        OptionSpec<Integer> threads = parser.accepts("threads").withRequiredArg().ofType(Integer.class)
+                .defaultsTo(0).describedAs("IO threads, 0 for twice the number of cores");
+        OptionSpec<String> latency = parser.accepts("latency").withRequiredArg().ofType(String.class)
+                .describedAs("the latency of each query in microseconds, as a generator spec");
+        OptionSet options = parser.parse(args);
+
+        CQLStubServer server = new CQLStubServer(
+                options.valueOf(host), options.valueOf(port), options.valueOf(threads), options.valueOf(latency));
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        server.start().serverChannel.closeFuture().syncUninterruptibly();
+    }
+}
@@ -18,9 +18,16 @@
 
 package com.metawiring.load.activities;
 
+import com.metawiring.load.activities.cql.CQLYamlActivity;
+import com.metawiring.load.activities.cql.CQLYamlActivityContext;
+import com.metawiring.load.activity.ActivityDispenserLocators;
+import com.metawiring.load.config.ActivityDef;
 import com.metawiring.load.config.TestClientConfig;
 import com.metawiring.load.config.YamlActivityDef;
 import com.metawiring.load.core.ExecutionContext;
+import com.metawiring.load.generator.GeneratorInstantiator;
+import com.metawiring.load.generator.RuntimeScope;
+import com.metawiring.load.generator.ScopedGeneratorCache;
 import org.testng.annotations.Test;
 
 import static org.mockito.Mockito.mock;
@@ -30,4 +37,16 @@ import static org.testng.Assert.*;
 @Test
 public class CQLYamlActivityTest {
 
+    public void shouldCreateSloContextInsidePhase() {
+        ExecutionContext context = new ExecutionContext(TestClientConfig.builder().build());
+        ActivityDef def = ActivityDef.parseActivityDef("write-telemetry:100:1:10:targetp99=10");
+        CQLYamlActivity activity = (CQLYamlActivity) new ActivityDispenserLocators().get(def).getNewInstance();
+
+        context.beginPhase("main");
+        CQLYamlActivityContext activityContext = activity.createContextToShare(def,
+                new ScopedGeneratorCache(new GeneratorInstantiator(), RuntimeScope.activity), context);
+        context.endPhase();
+
+        assertNotNull(activityContext.getSloCounter());
+    }
 }
\ No newline at end of file
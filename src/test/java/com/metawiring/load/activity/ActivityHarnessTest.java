@@ -0,0 +1,117 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.metawiring.load.activity;
+
+import com.metawiring.load.activities.WriteTelemetryAsyncActivity;
+import com.metawiring.load.activities.cql.CQLYamlActivity;
+import com.metawiring.load.config.ActivityDef;
+import com.metawiring.load.config.TestClientConfig;
+import com.metawiring.load.core.CycleDispenser;
+import com.metawiring.load.core.ExecutionContext;
+import com.metawiring.load.core.ProgressTracker;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ActivityHarnessTest {
+
+    @Test
+    public void shouldRunEachDispensedCycleOnce() throws Exception {
+        ActivityDef def = ActivityDef.parseActivityDef("cycles:1000..51000:8:1:stride=7");
+        AtomicIntegerArray seen = new AtomicIntegerArray((int) (def.getEndCycle() - def.getStartCycle()));
+        ActivityDispenser<Activity> dispenser = new ActivityDispenser<Activity>() {
+            @Override
+            public Activity getNewInstance() {
+                return new CycleCountingActivity(def.getStartCycle(), seen);
+            }
+
+            @Override
+            public String getName() {
+                return "cycles";
+            }
+
+            @Override
+            public String getActivityName() {
+                return "cycles";
+            }
+        };
+        ExecutionContext context = new ExecutionContext(TestClientConfig.builder().build());
+        CycleDispenser cycleDispenser = new CycleDispenser(def.getStartCycle(), def.getEndCycle(), def.getStride());
+        ProgressTracker progressTracker = new ProgressTracker(def);
+        progressTracker.start();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int tidx = 0; tidx < def.getThreads(); tidx++) {
+            ActivityHarness harness = new ActivityHarness(dispenser, context, null, def.getStartCycle(), def.getEndCycle(),
+                    1, 0, null, null, cycleDispenser, progressTracker, tidx + 1);
+            Thread thread = new Thread(harness);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int i = 0; i < seen.length(); i++) {
+            assertThat(seen.get(i)).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void shouldOnlyGiveCyclesToActivitiesWhichRunThem() {
+        assertThat(ActivityHarness.runsGivenCycles(new CycleCountingActivity(0L, null))).isTrue();
+        assertThat(ActivityHarness.runsGivenCycles(new CQLYamlActivity(null))).isTrue();
+        assertThat(ActivityHarness.runsGivenCycles(new WriteTelemetryAsyncActivity())).isFalse();
+    }
+
+    private static class CycleCountingActivity implements Activity {
+        private final long startCycle;
+        private final AtomicIntegerArray seen;
+
+        private CycleCountingActivity(long startCycle, AtomicIntegerArray seen) {
+            this.startCycle = startCycle;
+            this.seen = seen;
+        }
+
+        @Override
+        public void prepare(long startingCycle, long endingCycle, long maxAsync) {
+        }
+
+        @Override
+        public void createSchema() {
+        }
+
+        @Override
+        public void iterate() {
+            throw new RuntimeException("Cycles should be given to this activity");
+        }
+
+        @Override
+        public void iterate(long cycle, long intendedStartNanos) {
+            seen.incrementAndGet((int) (cycle - startCycle));
+        }
+
+        @Override
+        public void cleanup() {
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.metawiring.load.activity;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AsyncWindowTest {
+
+    @Test
+    public void shouldWaitForReleaseWhenFull() {
+        AsyncWindow asyncWindow = new AsyncWindow(2);
+        asyncWindow.acquire();
+        asyncWindow.acquire();
+        assertThat(asyncWindow.getInFlight()).isEqualTo(2);
+
+        ScheduledExecutorService releaser = Executors.newSingleThreadScheduledExecutor();
+        try {
+            long before = System.nanoTime();
+            releaser.schedule(asyncWindow::release, 100, TimeUnit.MILLISECONDS);
+            asyncWindow.acquire();
+            assertThat(System.nanoTime() - before).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+            assertThat(asyncWindow.getInFlight()).isEqualTo(2);
+        } finally {
+            releaser.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldDrainOutOfOrderReleases() {
+        AsyncWindow asyncWindow = new AsyncWindow(100);
+        ScheduledExecutorService releaser = Executors.newScheduledThreadPool(4);
+        try {
+            for (int i = 0; i < 100; i++) {
+                asyncWindow.acquire();
+                releaser.schedule(asyncWindow::release, 100 - i, TimeUnit.MILLISECONDS);
+            }
+            asyncWindow.awaitEmpty();
+            assertThat(asyncWindow.getInFlight()).isEqualTo(0);
+        } finally {
+            releaser.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.metawiring.load.config;
+
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ScenarioDefTest {
+
+    @Test
+    public void shouldLoadScenarioFromClassPath() {
+        ScenarioDef scenarioDef = ScenarioDef.load("telemetry");
+        List<PhaseDef> phases = scenarioDef.getPhases();
+        assertThat(phases).hasSize(4);
+
+        assertThat(phases.get(0).getType()).isEqualTo(PhaseDef.PhaseType.schema);
+        assertThat(phases.get(0).getName()).isEqualTo("schema");
+        assertThat(phases.get(0).isMeasured()).isFalse();
+        assertThat(phases.get(2).getType()).isEqualTo(PhaseDef.PhaseType.warmup);
+        assertThat(phases.get(2).isMeasured()).isFalse();
+        assertThat(phases.get(3).isMeasured()).isTrue();
+
+        List<ActivityDef> mainDefs = phases.get(3).getActivityDefs();
+        assertThat(mainDefs).hasSize(2);
+        assertThat(mainDefs.get(0).getName()).isEqualTo("write-telemetry");
+        assertThat(mainDefs.get(0).getStartCycle()).isEqualTo(1000000L);
+        assertThat(mainDefs.get(0).getThreads()).isEqualTo(20);
+    }
+
+    @Test(expectedExceptions = {RuntimeException.class})
+    public void shouldFailOnMissingScenario() {
+        ScenarioDef.load("no-such-scenario");
+    }
+
+}
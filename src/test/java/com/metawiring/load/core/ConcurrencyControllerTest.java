@@ -0,0 +1,55 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.metawiring.load.core;
+
+import com.metawiring.load.config.ActivityDef;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConcurrencyControllerTest {
+
+    @Test
+    public void shouldIncreaseAdditivelyAndDecreaseMultiplicatively() {
+        ActivityDef def = ActivityDef.parseActivityDef("test:100:2:10:concurrency=aimd:aimdinterval=0:aimdstep=2:targetp99=10");
+        assertThat(ConcurrencyController.isEnabled(def)).isTrue();
+        ConcurrencyController controller = new ConcurrencyController(def);
+        assertThat(controller.getConcurrency()).isEqualTo(2);
+
+        for (int i = 0; i < 10; i++) {
+            controller.recordSuccess(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        assertThat(controller.getConcurrency()).isEqualTo(10);
+
+        controller.recordSuccess(TimeUnit.MILLISECONDS.toNanos(20));
+        assertThat(controller.getConcurrency()).isEqualTo(7);
+
+        controller.recordError();
+        assertThat(controller.getConcurrency()).isEqualTo(5);
+        assertThat(controller.getThreadLimit(1)).isEqualTo(3);
+        assertThat(controller.getThreadLimit(2)).isEqualTo(2);
+
+        for (int i = 0; i < 10; i++) {
+            controller.recordError();
+        }
+        assertThat(controller.getConcurrency()).isEqualTo(2);
+    }
+
+}
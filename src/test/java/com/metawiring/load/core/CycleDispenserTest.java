@@ -0,0 +1,65 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.metawiring.load.core;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CycleDispenserTest {
+
+    @Test
+    public void shouldDispenseEachCycleOnce() throws Exception {
+        long startCycle = 1000L;
+        long endCycle = 101000L;
+        CycleDispenser cycleDispenser = new CycleDispenser(startCycle, endCycle, 7);
+        AtomicIntegerArray seen = new AtomicIntegerArray((int) (endCycle - startCycle));
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            Thread thread = new Thread(() -> {
+                long chunkStart;
+                while ((chunkStart = cycleDispenser.nextChunk()) < cycleDispenser.getEndCycle()) {
+                    long chunkEnd = Math.min(chunkStart + cycleDispenser.getStride(), cycleDispenser.getEndCycle());
+                    for (long cycle = chunkStart; cycle < chunkEnd; cycle++) {
+                        seen.incrementAndGet((int) (cycle - startCycle));
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int i = 0; i < seen.length(); i++) {
+            assertThat(seen.get(i)).isEqualTo(1);
+        }
+    }
+
+    @Test(expectedExceptions = {RuntimeException.class})
+    public void shouldRejectZeroStride() {
+        new CycleDispenser(0L, 10L, 0);
+    }
+
+}
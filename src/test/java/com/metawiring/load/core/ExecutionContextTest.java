@@ -0,0 +1,47 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.metawiring.load.core;
+
+import com.codahale.metrics.MetricRegistry;
+import com.metawiring.load.config.TestClientConfig;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExecutionContextTest {
+
+    @Test
+    public void shouldKeepPhaseMetricsSeparate() {
+        ExecutionContext context = new ExecutionContext(TestClientConfig.builder().build());
+
+        context.beginPhase("warmup");
+        context.getMetrics().counter("test.ops").inc(5);
+        assertThat(context.getRootMetrics().getCounters()).containsKey("warmup.test.ops");
+        MetricRegistry warmupMetrics = context.endPhase();
+        assertThat(context.getRootMetrics().getCounters()).doesNotContainKey("warmup.test.ops");
+
+        context.beginPhase("main");
+        context.getMetrics().counter("test.ops").inc();
+        MetricRegistry mainMetrics = context.endPhase();
+
+        assertThat(warmupMetrics.counter("test.ops").getCount()).isEqualTo(5L);
+        assertThat(mainMetrics.counter("test.ops").getCount()).isEqualTo(1L);
+        assertThat(context.getMetrics()).isSameAs(context.getRootMetrics());
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.core;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class HdrHistogramReservoirTest {
+
+    @Test
+    public void shouldKeepTailsOfValuesFromAllThreads() throws Exception {
+        HdrHistogramReservoir reservoir = new HdrHistogramReservoir();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (long value = 1; value <= 100000L; value++) {
+                    reservoir.update(value);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Snapshot snapshot = reservoir.getSnapshot();
+        assertThat(snapshot.size()).isEqualTo(400000);
+        assertThat(snapshot.getMin()).isEqualTo(1L);
+        assertThat(snapshot.getMax()).isBetween(100000L, 100100L);
+        assertThat(snapshot.getMedian()).isCloseTo(50000.0D, within(50.0D));
+        assertThat(snapshot.get999thPercentile()).isCloseTo(99900.0D, within(100.0D));
+        assertThat(snapshot.getValue(0.9999D)).isCloseTo(99990.0D, within(100.0D));
+    }
+
+    @Test
+    public void shouldCoverEverythingSinceCreation() {
+        HdrHistogramReservoir reservoir = new HdrHistogramReservoir();
+        reservoir.update(1000L);
+        assertThat(reservoir.getSnapshot().size()).isEqualTo(1);
+        reservoir.update(2000L);
+        Snapshot snapshot = reservoir.getSnapshot();
+        assertThat(snapshot.size()).isEqualTo(2);
+        assertThat(snapshot.getMin()).isEqualTo(1000L);
+        assertThat(snapshot.getValues()).hasSize(2);
+    }
+
+    @Test
+    public void shouldShareRegisteredTimers() {
+        MetricRegistry registry = new MetricRegistry();
+        Timer timer = HdrMetrics.timer(registry, "ops-total");
+        assertThat(HdrMetrics.timer(registry, "ops-total")).isSameAs(timer);
+
+        timer.update(3, TimeUnit.MILLISECONDS);
+        assertThat(registry.timer("ops-total").getSnapshot()).isInstanceOf(HdrHistogramReservoir.HdrSnapshot.class);
+        assertThat(registry.timer("ops-total").getSnapshot().getMax())
+                .isBetween(TimeUnit.MILLISECONDS.toNanos(3), TimeUnit.MICROSECONDS.toNanos(3003));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.core;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.ResultSetFuture;
+import org.testng.annotations.Test;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LoopbackSessionTest {
+
+    @Test
+    public void shouldTypeVariablesFromCreatedTables() {
+        LoopbackSession session = new LoopbackSession(null);
+        session.execute("create table if not exists ks.readings (\n"
+                + "  source int,      -- the source\n"
+                + "  epoch_hour text,\n"
+                + "  ts timestamp,\n"
+                + "  data map<text, frozen<list<int>>>,\n"
+                + "  PRIMARY KEY ((source, epoch_hour), ts)\n"
+                + ") with clustering order by (ts desc)\n"
+                + "  and compaction = { 'class': 'DateTieredCompactionStrategy' };");
+
+        PreparedStatement insert = session.prepare(
+                "insert into ks.readings (source, epoch_hour, ts, data) values (?, ?, ?, ?) using ttl ?");
+        assertThat(insert.getVariables().getType("source")).isEqualTo(DataType.cint());
+        assertThat(insert.getVariables().getType("epoch_hour")).isEqualTo(DataType.text());
+        assertThat(insert.getVariables().getType("data"))
+                .isEqualTo(DataType.map(DataType.text(), DataType.list(DataType.cint())));
+        assertThat(insert.getVariables().getType("ttl")).isEqualTo(DataType.cint());
+
+        PreparedStatement select = session.prepare(
+                "select * from readings where source = ? and epoch_hour=? and ts >= ? limit ?");
+        assertThat(select.getVariables().size()).isEqualTo(4);
+        assertThat(select.getVariables().getType("ts")).isEqualTo(DataType.timestamp());
+        assertThat(select.getVariables().getType("limit")).isEqualTo(DataType.cint());
+
+        BoundStatement bound = select.bind(3, "2016-01-01-00", new Date(0L), 10);
+        assertThat(session.executeAsync(bound).isDone()).isTrue();
+    }
+
+    @Test
+    public void shouldLearnTablesFromPreparedSchemaChanges() {
+        LoopbackSession session = new LoopbackSession(null);
+        PreparedStatement create = session.prepare("create table ks.points (id bigint primary key, label text)");
+        PreparedStatement insert = session.prepare("insert into ks.points (id, label) values (?, ?)");
+        session.execute(create.bind());
+        session.execute(insert.bind(1L, "one"));
+
+        PreparedStatement select = session.prepare("select * from ks.points where id = ?");
+        assertThat(select.getVariables().getType("id")).isEqualTo(DataType.bigint());
+    }
+
+    @Test
+    public void shouldBindAnyValueToUnknownColumns() {
+        LoopbackSession session = new LoopbackSession(null);
+        PreparedStatement insert = session.prepare("insert into unknown (a, b) values (?, ?)");
+        BoundStatement bound = insert.bind(1L, "text");
+        assertThat(bound.isSet(0)).isTrue();
+        assertThat(bound.isSet(1)).isTrue();
+    }
+
+    @Test
+    public void shouldCompleteAfterSyntheticLatency() throws Exception {
+        LoopbackSession session = new LoopbackSession("Exponential:20000:20000:1");
+        long startedAt = System.nanoTime();
+        ResultSetFuture future = session.executeAsync("select * from unknown");
+        future.get(5, TimeUnit.SECONDS);
+        assertThat(System.nanoTime() - startedAt).isGreaterThanOrEqualTo(TimeUnit.MICROSECONDS.toNanos(20000));
+        session.close();
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.metawiring.load.core;
+
+import com.metawiring.load.config.ActivityDef;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProgressTrackerTest {
+
+    @Test
+    public void shouldSumThreadProgress() {
+        ProgressTracker progressTracker = new ProgressTracker(new ActivityDef("test", 100L, 200L, 2, 2, 0));
+        ProgressTracker.ThreadProgress first = progressTracker.newThreadProgress();
+        ProgressTracker.ThreadProgress second = progressTracker.newThreadProgress();
+        for (int i = 0; i < 10; i++) {
+            first.inc();
+        }
+        second.inc();
+        assertThat(progressTracker.getCompletedCycles()).isEqualTo(11L);
+        assertThat(progressTracker.getCyclePosition()).isEqualTo(111L);
+    }
+
+    @Test
+    public void shouldStopAtDuration() throws Exception {
+        Map<String, String> params = new HashMap<>();
+        params.put("duration", "100ms");
+        ProgressTracker progressTracker = new ProgressTracker(new ActivityDef("test", 0L, 10L, 1, 1, 0, params));
+        progressTracker.start();
+        assertThat(progressTracker.isRunning()).isTrue();
+        Thread.sleep(150L);
+        assertThat(progressTracker.isRunning()).isFalse();
+    }
+
+    @Test
+    public void shouldStopWhenAsked() {
+        ProgressTracker progressTracker = new ProgressTracker(new ActivityDef("test", 0L, 10L, 1, 1, 0));
+        progressTracker.start();
+        progressTracker.stop();
+        assertThat(progressTracker.isRunning()).isFalse();
+    }
+
+    @Test
+    public void shouldParseDurations() {
+        Map<String, String> params = new HashMap<>();
+        params.put("duration", "30m");
+        assertThat(new ActivityDef("test", 0L, 10L, 1, 1, 0, params).getDurationMillis()).isEqualTo(1800000L);
+        params.put("duration", "45");
+        assertThat(new ActivityDef("test", 0L, 10L, 1, 1, 0, params).getDurationMillis()).isEqualTo(45000L);
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.core;
+
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RateLimiterTest {
+
+    @Test
+    public void shouldScheduleOpsAtFixedIntervals() {
+        RateLimiter rateLimiter = new RateLimiter(1000000.0D);
+        long previous = rateLimiter.acquire();
+        for (int i = 0; i < 1000; i++) {
+            long scheduled = rateLimiter.acquire();
+            assertThat(scheduled - previous).isEqualTo(1000L);
+            previous = scheduled;
+        }
+    }
+
+    @Test
+    public void shouldNotWaitWhenBehindSchedule() throws Exception {
+        RateLimiter rateLimiter = new RateLimiter(10.0D);
+        rateLimiter.acquire();
+        Thread.sleep(500);
+        assertThat(rateLimiter.getScheduleDelayNanos()).isGreaterThan(0L);
+        long before = System.nanoTime();
+        rateLimiter.acquire();
+        rateLimiter.acquire();
+        assertThat(System.nanoTime() - before).isLessThan(100000000L);
+    }
+
+    @Test(expectedExceptions = {RuntimeException.class})
+    public void shouldRejectNonPositiveRates() {
+        new RateLimiter(0.0D);
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.metawiring.load.core;
+
+import com.metawiring.load.config.ActivityDef;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RateSearchTest {
+
+    @Test
+    public void shouldFindMaxRateWithExponentialSearch() {
+        ActivityDef def = ActivityDef.parseActivityDef("test:100:2:10:search=exponential:searchstart=100:precision=0.05");
+        CapacityRateSearch search = new CapacityRateSearch(def, 3000.0D);
+        search.run();
+
+        assertThat(search.getMaxPassingRate()).isLessThanOrEqualTo(3000.0D);
+        assertThat(search.getMaxPassingRate()).isGreaterThanOrEqualTo(3000.0D * 0.95D);
+        assertThat(search.rates.subList(0, 6)).containsExactly(100.0D, 200.0D, 400.0D, 800.0D, 1600.0D, 3200.0D);
+        assertThat(search.progressTracker.isRunning()).isFalse();
+    }
+
+    @Test
+    public void shouldStartBinarySearchHalfwayToMax() {
+        ActivityDef def = ActivityDef.parseActivityDef("test:100:2:10:search=binary:searchmax=10000:precision=0.01");
+        assertThat(RateSearch.getStartRate(def)).isEqualTo(5000.0D);
+        CapacityRateSearch search = new CapacityRateSearch(def, 7000.0D);
+        search.run();
+
+        assertThat(search.rates.get(0)).isEqualTo(5000.0D);
+        assertThat(search.getMaxPassingRate()).isLessThanOrEqualTo(7000.0D);
+        assertThat(search.getMaxPassingRate()).isGreaterThanOrEqualTo(7000.0D * 0.99D);
+    }
+
+    private static class CapacityRateSearch extends RateSearch {
+        private final double capacity;
+        private final ProgressTracker progressTracker;
+        private final List<Double> rates = new ArrayList<>();
+
+        private CapacityRateSearch(ActivityDef def, double capacity) {
+            this(def, capacity, new ProgressTracker(def));
+        }
+
+        private CapacityRateSearch(ActivityDef def, double capacity, ProgressTracker progressTracker) {
+            super(def, new RateLimiter(1.0D), progressTracker, new SloCounter(0L));
+            this.capacity = capacity;
+            this.progressTracker = progressTracker;
+        }
+
+        @Override
+        protected Step measure(double rate) {
+            rates.add(rate);
+            boolean passed = rate <= capacity;
+            return new Step(rates.size(), rate, Math.min(rate, capacity), (long) Math.min(rate, capacity), 0.0D, 0.0D, passed);
+        }
+    }
+
+}
@@ -0,0 +1,52 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.metawiring.load.core;
+
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RetryBudgetTest {
+
+    @Test
+    public void shouldAllowBurstThenRatio() {
+        RetryBudget retryBudget = new RetryBudget(0.1D, 5);
+        for (int i = 0; i < 5; i++) {
+            assertThat(retryBudget.tryWithdraw()).isTrue();
+        }
+        assertThat(retryBudget.tryWithdraw()).isFalse();
+
+        for (int i = 0; i < 9; i++) {
+            retryBudget.deposit();
+        }
+        assertThat(retryBudget.tryWithdraw()).isFalse();
+        retryBudget.deposit();
+        assertThat(retryBudget.tryWithdraw()).isTrue();
+        assertThat(retryBudget.tryWithdraw()).isFalse();
+    }
+
+    @Test
+    public void shouldCapBalance() {
+        RetryBudget retryBudget = new RetryBudget(1.0D, 3);
+        for (int i = 0; i < 100; i++) {
+            retryBudget.deposit();
+        }
+        assertThat(retryBudget.getBalance()).isEqualTo(3.0D);
+    }
+
+}
@@ -0,0 +1,43 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.metawiring.load.core;
+
+import com.metawiring.load.generators.ThreadNumGenerator;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ThreadIndexTest {
+
+    @Test
+    public void shouldBindAnyThread() {
+        ThreadIndex.bind(7, "testactivity");
+        try {
+            assertThat(new ThreadNumGenerator().get()).isEqualTo(7);
+            assertThat(ThreadIndex.get().getMetricName()).isEqualTo("testactivity");
+        } finally {
+            ThreadIndex.unbind();
+        }
+    }
+
+    @Test(expectedExceptions = {RuntimeException.class})
+    public void shouldFailWhenUnbound() {
+        ThreadIndex.get();
+    }
+
+}
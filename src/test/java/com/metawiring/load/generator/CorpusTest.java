@@ -0,0 +1,76 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.metawiring.load.generator;
+
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CorpusTest {
+
+    @Test
+    public void shouldIndexLinesOfMappedFile() throws IOException {
+        File file = File.createTempFile("corpus", ".txt");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("alpha\nbeta\r\n\ngamma\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        Corpus corpus = Corpus.get(file.getPath());
+        assertThat(Corpus.get(file.getPath())).isSameAs(corpus);
+        assertThat(corpus.size()).isEqualTo(19L);
+        assertThat(corpus.lines()).isEqualTo(4L);
+        assertThat(corpus.line(0)).isEqualTo("alpha");
+        assertThat(corpus.line(1)).isEqualTo("beta");
+        assertThat(corpus.line(2)).isEqualTo("");
+        assertThat(corpus.line(3)).isEqualTo("gamma");
+        assertThat(corpus.extract(6, 4)).isEqualTo("beta");
+        assertThat(corpus.extract(17, 10)).isEqualTo("a\n");
+    }
+
+    @Test
+    public void shouldSliceOnCharacterBoundaries() throws IOException {
+        File file = File.createTempFile("corpus", ".txt");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("aé€b".getBytes(StandardCharsets.UTF_8));
+        }
+
+        Corpus corpus = Corpus.get(file.getPath());
+        assertThat(corpus.size()).isEqualTo(7L);
+        ByteBuffer slice = corpus.utf8Slice(2, 4);
+        assertThat(slice.isReadOnly()).isTrue();
+        assertThat(StandardCharsets.UTF_8.decode(slice).toString()).isEqualTo("€");
+        assertThat(corpus.extract(0, 7)).isEqualTo("aé€b");
+        assertThat(corpus.extract(1, 4)).isEqualTo("é");
+    }
+
+    @Test
+    public void shouldFindCorpusUnderData() {
+        Corpus corpus = Corpus.get("variable_words.txt");
+        assertThat(corpus.lines()).isGreaterThan(10L);
+        assertThat(corpus.line(0)).isNotEmpty();
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.metawiring.load.generator;
+
+import com.metawiring.load.generators.CycleNumberGenerator;
+import com.metawiring.load.generators.LongDivSequenceGenerator;
+import com.metawiring.load.generators.StringGenerator;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GeneratorBindingListTest {
+
+    @Test
+    public void shouldGenerateValuesByCycle() {
+        GeneratorBindingList bindings = new GeneratorBindingList(spec -> {
+            switch (spec) {
+                case "cycle":
+                    return new CycleNumberGenerator();
+                case "div":
+                    return new LongDivSequenceGenerator(10);
+                default:
+                    return new StringGenerator(spec);
+            }
+        });
+        bindings.bindGenerator(null, "a", "cycle", 100);
+        bindings.bindGenerator(null, "b", "div", 100);
+        bindings.bindGenerator(null, "c", "fixed", 100);
+
+        assertThat(bindings.getAll(25)).containsExactly(25L, 2L, "fixed");
+        assertThat(bindings.getAll(25)).containsExactly(25L, 2L, "fixed");
+        assertThat(bindings.getAll()).containsExactly(100L, 10L, "fixed");
+        assertThat(bindings.getAll()).containsExactly(101L, 10L, "fixed");
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void shouldNotGenerateWithoutCycle() {
+        new CycleNumberGenerator().get();
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.metawiring.load.generator;
+
+import com.metawiring.load.generators.LoremExtractGenerator;
+import com.metawiring.load.generators.ZipfGenerator;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GeneratorInstantiatorTest {
+
+    @Test
+    public void shouldCompileEachSpecOnce() {
+        GeneratorInstantiator instantiator = new GeneratorInstantiator();
+        GeneratorFactory<?> factory = instantiator.getFactory("Zipf:1:1000:0.99");
+        assertThat(instantiator.getFactory("Zipf:1:1000:0.99")).isSameAs(factory);
+
+        Generator<?> first = instantiator.getGenerator("Zipf:1:1000:0.99");
+        Generator<?> second = instantiator.getGenerator("Zipf:1:1000:0.99");
+        assertThat(first).isInstanceOf(ZipfGenerator.class);
+        assertThat(second).isNotSameAs(first);
+        assertThat(((ZipfGenerator) second).applyAsLong(42L)).isEqualTo(((ZipfGenerator) first).applyAsLong(42L));
+    }
+
+    @Test
+    public void shouldCreateGeneratorsConcurrently() throws Exception {
+        GeneratorInstantiator instantiator = new GeneratorInstantiator();
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Generator>> futures = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                futures.add(pool.submit(() -> instantiator.getGenerator("LoremExtractGenerator:10:20")));
+            }
+            for (Future<Generator> future : futures) {
+                assertThat(future.get()).isInstanceOf(LoremExtractGenerator.class);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void shouldRejectSpecWithoutMatchingConstructor() {
+        new GeneratorInstantiator().getGenerator("Zipf:1:1000");
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.metawiring.load.generator;
+
+import com.metawiring.load.generators.IntegerModSequenceGenerator;
+import com.metawiring.load.generators.NamedNumberGenerator;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PoolGeneratorTest {
+
+    @Test
+    public void shouldServeTextValuesByCycle() {
+        NamedNumberGenerator named = new NamedNumberGenerator(1000000);
+        Generator<?> pool = new GeneratorInstantiator().getGenerator("pool:100 NamedNumberGenerator:1000000");
+        assertThat(pool).isInstanceOf(Utf8Generator.class);
+        Utf8Generator text = (Utf8Generator) pool;
+        for (long cycle = 0; cycle < 300; cycle++) {
+            String expected = named.apply(cycle % 100);
+            assertThat(text.apply(cycle)).isEqualTo(expected);
+            assertThat(StandardCharsets.UTF_8.decode(text.applyAsUtf8(cycle)).toString()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void shouldServeRandomIndexesReproducibly() {
+        PoolGenerator<?> pool = PoolGenerator.of(16, true, new IntegerModSequenceGenerator(1000), "pool:16:random IntegerModSequenceGenerator:1000");
+        PoolGenerator<?> again = PoolGenerator.of(16, true, new IntegerModSequenceGenerator(1000), "pool:16:random IntegerModSequenceGenerator:1000");
+        assertThat(pool).isInstanceOf(IntGenerator.class);
+        boolean outOfOrder = false;
+        for (long cycle = 0; cycle < 1000; cycle++) {
+            int value = ((IntGenerator) pool).applyAsInt(cycle);
+            assertThat(value).isBetween(0, 15);
+            assertThat(((IntGenerator) again).applyAsInt(cycle)).isEqualTo(value);
+            outOfOrder |= value != cycle % 16;
+        }
+        assertThat(outOfOrder).isTrue();
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.metawiring.load.generator;
+
+import com.metawiring.load.generators.RandomStringRangeGenerator;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RandomSourceTest {
+
+    @Test
+    public void shouldSampleBoundedValuesUniformly() {
+        int[] counts = new int[10];
+        for (long cycle = 0; cycle < 100000; cycle++) {
+            int value = RandomSource.bounded(RandomSource.at(42L, cycle), 10);
+            assertThat(value).isBetween(0, 9);
+            counts[value]++;
+        }
+        for (int count : counts) {
+            assertThat(count).isBetween(9500, 10500);
+        }
+    }
+
+    @Test
+    public void shouldRepeatValuesForTheSameRunSeed() {
+        long original = RandomSource.getRunSeed();
+        try {
+            RandomSource.setRunSeed(1234L);
+            RandomStringRangeGenerator first = new RandomStringRangeGenerator(1000, 2000);
+            RandomStringRangeGenerator second = new RandomStringRangeGenerator(1000, 2000);
+            assertThat(first.apply(77L)).isEqualTo(second.apply(77L));
+            assertThat(Long.valueOf(first.apply(77L))).isBetween(1000L, 1999L);
+
+            RandomSource.setRunSeed(5678L);
+            RandomStringRangeGenerator third = new RandomStringRangeGenerator(1000, 2000);
+            assertThat(third.apply(77L)).isNotEqualTo(first.apply(77L));
+        } finally {
+            RandomSource.setRunSeed(original);
+        }
+    }
+
+}
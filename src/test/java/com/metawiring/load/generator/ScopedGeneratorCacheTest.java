@@ -19,6 +19,7 @@
 package com.metawiring.load.generator;
 
 import com.metawiring.load.generators.CycleNumberGenerator;
+import com.metawiring.load.generators.LoremExtractGenerator;
 import org.testng.annotations.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -41,6 +42,12 @@ public class ScopedGeneratorCacheTest {
         sgc.EnterSubScope(RuntimeScope.definition);
     }
 
+    @Test(expectedExceptions = {RuntimeException.class}, expectedExceptionsMessageRegExp = ".*GENERATOR-SCOPE-ERROR.*")
+    public void shouldRejectScopesWithoutCacheLevel() {
+        ScopedGeneratorCache sgc = new ScopedGeneratorCache(new GeneratorInstantiator(), RuntimeScope.activity);
+        sgc.getGenerator("statement " + genspec);
+    }
+
     @Test
     public void shouldReturnSameGeneratorForSameNameSameScope() {
         ScopedGeneratorCache sgc = new ScopedGeneratorCache(new GeneratorInstantiator(), RuntimeScope.process);
@@ -68,4 +75,42 @@ public class ScopedGeneratorCacheTest {
         assertThat(generator1).isNotSameAs(generator2);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldCacheAtEveryEnclosingScope() {
+        ScopedGeneratorCache sgc = new ScopedGeneratorCache(new GeneratorInstantiator(), RuntimeScope.testexecution);
+        ScopedGeneratorCache activityScopedCache = sgc.EnterSubScope(RuntimeScope.node)
+                .EnterSubScope(RuntimeScope.process)
+                .EnterSubScope(RuntimeScope.phase)
+                .EnterSubScope(RuntimeScope.activity);
+
+        for (String scope : new String[]{"test", "testexecution", "node", "process", "phase", "activity"}) {
+            Generator generator = activityScopedCache.getGenerator(scope + " " + genspec);
+            assertThat(activityScopedCache.getGenerator(scope + " " + genspec)).isSameAs(generator);
+        }
+        assertThat(activityScopedCache.getGenerator("test " + genspec)).isSameAs(sgc.getGenerator("testexecution " + genspec));
+        assertThat(activityScopedCache.getGenerator("process " + genspec)).isNotSameAs(activityScopedCache.getGenerator("node " + genspec));
+        assertThat(activityScopedCache.getGenerator("thread " + genspec)).isNotSameAs(activityScopedCache.getGenerator("thread " + genspec));
+    }
+
+    @Test
+    public void shouldSeedBindingsWithTheSameSpecApart() {
+        ScopedGeneratorCache sgc = new ScopedGeneratorCache(new GeneratorInstantiator(), RuntimeScope.activity);
+        String lorem = "LoremExtractGenerator:100:100";
+        LoremExtractGenerator c0 = (LoremExtractGenerator) sgc.getGenerator(ScopedGeneratorCache.seededSpec(lorem, "c0"));
+        LoremExtractGenerator c1 = (LoremExtractGenerator) sgc.getGenerator(ScopedGeneratorCache.seededSpec(lorem, "c1"));
+
+        assertThat(c0).isNotSameAs(c1);
+        assertThat(c0.apply(42L)).isNotEqualTo(c1.apply(42L));
+        assertThat(sgc.getGenerator(ScopedGeneratorCache.seededSpec(lorem, "c0"))).isSameAs(c0);
+        assertThat(((LoremExtractGenerator) new GeneratorInstantiator().getGenerator("seed:c0 " + lorem)).apply(42L))
+                .isEqualTo(c0.apply(42L));
+    }
+
+    @Test
+    public void shouldKeepScopeAndSeedOfSeededSpecs() {
+        assertThat(ScopedGeneratorCache.seededSpec("thread " + genspec, "key")).isEqualTo("thread seed:key " + genspec);
+        assertThat(ScopedGeneratorCache.seededSpec(genspec, "key")).isEqualTo("seed:key " + genspec);
+        assertThat(ScopedGeneratorCache.seededSpec("seed:shared " + genspec, "key")).isEqualTo("seed:shared " + genspec);
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.metawiring.load.generators;
+
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DateBucketFieldGeneratorTest {
+
+    @Test
+    public void shouldMatchPrintedDatesAcrossBuckets() {
+        String[] patterns = {"YYYY-MM-dd-HH", "YYYY-MM-dd", "HH:mm:ss", "'day' D 'at' h a", "xxxx-ww", "YYYY-MM-dd HH:mm Z"};
+        for (String pattern : patterns) {
+            DateSequenceFieldGenerator printing = new DateSequenceFieldGenerator(997, pattern);
+            DateBucketFieldGenerator bucketed = new DateBucketFieldGenerator(997, pattern);
+            for (long cycle = 0; cycle < 200000; cycle += 7) {
+                assertThat(bucketed.apply(cycle)).isEqualTo(printing.apply(cycle));
+            }
+        }
+    }
+
+    @Test
+    public void shouldMatchPrintedDatesOutOfOrder() {
+        DateSequenceFieldGenerator printing = new DateSequenceFieldGenerator(3600000, "YYYY-MM-dd-HH");
+        DateBucketFieldGenerator bucketed = new DateBucketFieldGenerator(3600000, "YYYY-MM-dd-HH");
+        for (long cycle : new long[]{500000, 3, 499999, 4, 4, 500001, 0}) {
+            String expected = printing.apply(cycle);
+            assertThat(bucketed.apply(cycle)).isEqualTo(expected);
+            assertThat(StandardCharsets.UTF_8.decode(bucketed.applyAsUtf8(cycle)).toString()).isEqualTo(expected);
+        }
+    }
+
+}
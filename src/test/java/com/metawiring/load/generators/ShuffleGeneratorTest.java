@@ -0,0 +1,55 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.metawiring.load.generators;
+
+import org.testng.annotations.Test;
+
+import java.util.BitSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ShuffleGeneratorTest {
+
+    @Test
+    public void shouldVisitEveryKeyOnce() {
+        for (long size : new long[]{1, 2, 3, 1000, 4097, 100003}) {
+            ShuffleGenerator shuffle = new ShuffleGenerator(size);
+            BitSet seen = new BitSet((int) size);
+            for (long cycle = 1; cycle <= size; cycle++) {
+                long key = shuffle.applyAsLong(cycle);
+                assertThat(key).isBetween(0L, size - 1);
+                assertThat(seen.get((int) key)).isFalse();
+                seen.set((int) key);
+            }
+            assertThat(seen.cardinality()).isEqualTo((int) size);
+        }
+    }
+
+    @Test
+    public void shouldNotKeepKeysInOrder() {
+        ShuffleGenerator shuffle = new ShuffleGenerator(1000000);
+        int inOrder = 0;
+        for (long cycle = 0; cycle < 1000; cycle++) {
+            if (shuffle.applyAsLong(cycle + 1) == shuffle.applyAsLong(cycle) + 1) {
+                inOrder++;
+            }
+        }
+        assertThat(inOrder).isLessThan(10);
+    }
+
+}
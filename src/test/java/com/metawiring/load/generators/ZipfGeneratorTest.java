@@ -0,0 +1,80 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.metawiring.load.generators;
+
+import com.metawiring.load.generator.GeneratorInstantiator;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ZipfGeneratorTest {
+
+    @Test
+    public void shouldFavorTheFirstKeys() {
+        ZipfGenerator zipf = new ZipfGenerator(1, 1000, 1.0D);
+        int samples = 100000;
+        int[] counts = new int[1001];
+        for (long cycle = 0; cycle < samples; cycle++) {
+            long key = zipf.applyAsLong(cycle);
+            assertThat(key).isBetween(1L, 1000L);
+            counts[(int) key]++;
+        }
+        // With an exponent of 1.0, key k has a probability of 1/(k*H(1000)), where H(1000) is about 7.485
+        assertThat(counts[1] / (double) samples).isBetween(0.128D, 0.139D);
+        assertThat(counts[2] / (double) samples).isBetween(0.062D, 0.072D);
+        assertThat(counts[10] / (double) samples).isBetween(0.011D, 0.016D);
+    }
+
+    @Test
+    public void shouldSampleHugeKeySpaces() {
+        ZipfGenerator zipf = new ZipfGenerator(1L, 10000000000L, 0.99D);
+        for (long cycle = 0; cycle < 10000; cycle++) {
+            assertThat(zipf.applyAsLong(cycle)).isBetween(1L, 10000000000L);
+        }
+    }
+
+    @Test
+    public void shouldSendHotOpsToTheHotSet() {
+        HotspotGenerator hotspot = new HotspotGenerator(0, 999, 0.2D, 0.8D);
+        int hot = 0;
+        for (long cycle = 0; cycle < 100000; cycle++) {
+            long key = hotspot.applyAsLong(cycle);
+            assertThat(key).isBetween(0L, 999L);
+            if (key < 200) {
+                hot++;
+            }
+        }
+        assertThat(hot).isBetween(79000, 81000);
+    }
+
+    @Test
+    public void shouldReadLatestKeysOnly() {
+        LatestGenerator latest = new LatestGenerator(100, 0.99D);
+        assertThat(latest.applyAsLong(0)).isEqualTo(0L);
+        for (long cycle = 1000; cycle < 2000; cycle++) {
+            assertThat(latest.applyAsLong(cycle)).isBetween(cycle - 99, cycle);
+        }
+    }
+
+    @Test
+    public void shouldResolveShortNames() {
+        assertThat(new GeneratorInstantiator().getGenerator("Zipf:1:1000000000:0.99")).isInstanceOf(ZipfGenerator.class);
+        assertThat(new GeneratorInstantiator().getGenerator("ExponentialString:1:1000:10")).isInstanceOf(ExponentialStringGenerator.class);
+    }
+
+}
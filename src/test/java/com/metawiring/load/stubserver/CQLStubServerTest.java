@@ -0,0 +1,102 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+
+package com.metawiring.load.stubserver;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.exceptions.InvalidQueryException;
+import com.metawiring.load.config.TestClientConfig;
+import com.metawiring.load.core.ActivityExecutorService;
+import com.metawiring.load.core.ExecutionContext;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class CQLStubServerTest {
+
+    private final static long cycles = 50000L;
+
+    /**
+     * The lowest rate which the client must reach against the stub server. It is set low enough for a busy build
+     * machine; raise it with -Dstubserver.minops to guard a faster one.
+     */
+    private final static double minOpsPerSecond = Double.valueOf(System.getProperty("stubserver.minops", "2000"));
+
+    private CQLStubServer server;
+
+    @BeforeClass
+    public void startServer() {
+        server = new CQLStubServer("127.0.0.1", 0, 2, null).start();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void shouldAnswerTheDriver() {
+        try (Cluster cluster = Cluster.builder().addContactPoint("127.0.0.1").withPort(server.getPort()).build()) {
+            Session session = cluster.connect();
+            session.execute("create keyspace if not exists stubks with replication ="
+                    + " {'class': 'SimpleStrategy', 'replication_factor': 1}");
+            session.execute("create table if not exists stubks.kv (k bigint primary key, v text)");
+
+            PreparedStatement insert = session.prepare("insert into stubks.kv (k, v) values (?, ?)");
+            assertThat(insert.getVariables().getType("k").getName().toString()).isEqualTo("bigint");
+            assertThat(session.execute(insert.bind(1L, "one")).wasApplied()).isTrue();
+
+            PreparedStatement select = session.prepare("select v from stubks.kv where k = ?");
+            assertThat(session.execute(select.bind(1L)).all()).isEmpty();
+
+            try {
+                session.prepare("insert into stubks.unknown (k) values (?)");
+                fail("preparing for an unknown table should fail");
+            } catch (InvalidQueryException expected) {
+                assertThat(expected.getMessage()).contains("unconfigured table");
+            }
+        }
+    }
+
+    @Test
+    public void shouldRunActivitiesAboveThroughputFloor() {
+        TestClientConfig config = TestClientConfig.builder()
+                .withHost("127.0.0.1")
+                .withPort(server.getPort())
+                .withCreateSchema(true)
+                .addActivityDef("write-telemetry:" + cycles + ":4:100")
+                .build();
+        ExecutionContext context = new ExecutionContext(config);
+        ActivityExecutorService executorService = new ActivityExecutorService();
+        executorService.prepare(context);
+
+        long startedAt = System.nanoTime();
+        executorService.execute();
+        double seconds = (System.nanoTime() - startedAt) / 1000000000.0D;
+        long ops = context.getMetrics().timer("write-telemetry.ops-total").getCount();
+        context.shutdown();
+
+        assertThat(ops).isEqualTo(cycles);
+        assertThat(ops / seconds).isGreaterThan(minOpsPerSecond);
+    }
+}
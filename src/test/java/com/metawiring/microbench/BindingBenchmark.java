@@ -0,0 +1,160 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.metawiring.microbench;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.LoopbackPreparedStatement;
+import com.metawiring.load.core.ReadyStatement;
+import com.metawiring.load.core.ReadyStatements;
+import com.metawiring.load.core.ThreadIndex;
+import com.metawiring.load.generator.GeneratorBindingList;
+import com.metawiring.load.generator.GeneratorInstantiator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The cost of generating and binding the values for one op, with the bindings of write-telemetry.yaml. Statements
+ * are prepared against {@link LoopbackPreparedStatement}, so nothing is sent anywhere. Shared state uses the same
+ * generators from all threads, as activity scoped bindings do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BindingBenchmark {
+
+    private final static String[][] bindings = {
+            {"source", "ThreadNumGenerator", "int"},
+            {"epoch_hour", "DateBucketFieldGenerator:1000:YYYY-MM-dd-HH", "text"},
+            {"param", "LineExtractGenerator:data/variable_words.txt", "text"},
+            {"ts", "DateSequenceGenerator:1000", "timestamp"},
+            {"cycle", "CycleNumberGenerator", "bigint"},
+            {"data", "LoremExtractGenerator:100:200", "text"}
+    };
+
+    private final static AtomicInteger threadCount = new AtomicInteger(0);
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+        GeneratorBindingList bindingList;
+        ReadyStatements readyStatements;
+
+        @Setup
+        public void setup() {
+            GeneratorInstantiator instantiator = new GeneratorInstantiator();
+            LoopbackPreparedStatement prepared = prepare("insert");
+            bindingList = new GeneratorBindingList(instantiator);
+            for (String[] binding : bindings) {
+                bindingList.bindGenerator(prepared, binding[0], binding[1], 0L);
+            }
+            ReadyStatement[] statements = new ReadyStatement[3];
+            for (int idx = 0; idx < statements.length; idx++) {
+                statements[idx] = new ReadyStatement(instantiator, prepare("insert" + idx), 0L);
+                for (String[] binding : bindings) {
+                    statements[idx].addBinding(binding[0], binding[1]);
+                }
+            }
+            readyStatements = new ReadyStatements(statements);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class PerThread {
+        final Shared own = new Shared();
+        long cycle;
+
+        @Setup
+        public void setup() {
+            ThreadIndex.bind(threadCount.getAndIncrement(), "benchmark");
+            own.setup();
+        }
+    }
+
+    private static LoopbackPreparedStatement prepare(String name) {
+        Object[] namesAndTypes = new Object[bindings.length * 2];
+        for (int idx = 0; idx < bindings.length; idx++) {
+            namesAndTypes[idx * 2] = bindings[idx][0];
+            namesAndTypes[idx * 2 + 1] = typeOf(bindings[idx][2]);
+        }
+        return new LoopbackPreparedStatement("testks", "telemetry", name, namesAndTypes);
+    }
+
+    private static DataType typeOf(String type) {
+        switch (type) {
+            case "text":
+                return DataType.text();
+            case "timestamp":
+                return DataType.timestamp();
+            case "bigint":
+                return DataType.bigint();
+            default:
+                return DataType.cint();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object[] getAllPerThread(PerThread state) {
+        return state.own.bindingList.getAll(state.cycle++);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object[] getAllContended(Shared shared, PerThread state) {
+        return shared.bindingList.getAll(state.cycle++);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public BoundStatement bindPerThread(PerThread state) {
+        return state.own.readyStatements.getReadyStatements()[0].bind(state.cycle++);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public BoundStatement bindContended(Shared shared, PerThread state) {
+        return shared.readyStatements.getReadyStatements()[0].bind(state.cycle++);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ReadyStatement getNextPerThread(PerThread state) {
+        return state.own.readyStatements.getNext(state.cycle++);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public BoundStatement getNextAndBindContended(Shared shared, PerThread state) {
+        long cycle = state.cycle++;
+        return shared.readyStatements.getNext(cycle).bind(cycle);
+    }
+}
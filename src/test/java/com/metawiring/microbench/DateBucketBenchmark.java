@@ -0,0 +1,100 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.metawiring.microbench;
+
+import com.metawiring.load.generator.CycleGenerator;
+import com.metawiring.load.generator.GeneratorInstantiator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The cost of a formatted date field, from a generator which formats every value and from one which formats once
+ * per time bucket. Both are shared by all threads, as activity scoped bindings are. With split cycles, each thread
+ * of an activity works on its own range of cycles, so the split case gives each thread a range which starts hours
+ * of time after the one before it, as 1M cycles over 20 threads at 1000ms per cycle do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateBucketBenchmark {
+
+    private final static long CYCLES_PER_THREAD = 50000L;
+    private final static AtomicInteger threadCount = new AtomicInteger(0);
+
+    @State(Scope.Benchmark)
+    public static class Spec {
+        @Param({
+                "DateSequenceFieldGenerator:1000:YYYY-MM-dd-HH",
+                "DateBucketFieldGenerator:1000:YYYY-MM-dd-HH"
+        })
+        public String spec;
+
+        CycleGenerator<?> shared;
+
+        @Setup
+        public void setup() {
+            shared = (CycleGenerator<?>) new GeneratorInstantiator().getGenerator(spec);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class CycleRange {
+        long start;
+        long cycle;
+
+        @Setup
+        public void setup() {
+            start = threadCount.getAndIncrement() * CYCLES_PER_THREAD;
+            cycle = start;
+        }
+
+        long next() {
+            if (cycle == start + CYCLES_PER_THREAD) {
+                cycle = start;
+            }
+            return cycle++;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object sequential(Spec spec, CycleRange range) {
+        return spec.shared.apply(range.next());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object splitCycles(Spec spec, CycleRange range) {
+        return spec.shared.apply(range.next());
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.metawiring.microbench;
+
+import com.metawiring.load.core.ThreadIndex;
+import com.metawiring.load.generator.CycleGenerator;
+import com.metawiring.load.generator.Generator;
+import com.metawiring.load.generator.GeneratorInstantiator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The cost of one value from each generator in com.metawiring.load.generators. Each generator is measured with its
+ * own instance per thread, as thread scoped bindings are, and with one instance shared by all threads, as activity
+ * scoped bindings are.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneratorBenchmark {
+
+    private final static AtomicInteger threadCount = new AtomicInteger(0);
+
+    @State(Scope.Benchmark)
+    public static class Spec {
+        @Param({
+                "BooleanGenerator:true",
+                "CycleNumberGenerator",
+                "CycleNumberStringGenerator",
+                "DateBucketFieldGenerator:1000:YYYY-MM-dd-HH",
+                "DateSequenceFieldGenerator:1000:YYYY-MM-dd-HH",
+                "DateSequenceGenerator:1000",
+                "DateStampGenerator",
+                "ExponentialGenerator:1:1000000:1000",
+                "ExponentialStringGenerator:1:1000000:1000",
+                "ExtractGenerator:data/lorem_ipsum_full.txt:10:100",
+                "HotspotGenerator:1:1000000:0.2:0.8",
+                "HotspotStringGenerator:1:1000000:0.2:0.8",
+                "InetAddressGenerator",
+                "InetAddressStringGenerator",
+                "IntegerModSequenceGenerator:1000",
+                "IntegerSequenceGenerator",
+                "LatestGenerator:100000:0.99",
+                "LatestStringGenerator:100000:0.99",
+                "LineExtractGenerator:data/variable_words.txt",
+                "LineExtractModGenerator:data/variable_words.txt",
+                "LongDivSequenceGenerator:10",
+                "LongDivStringSequenceGenerator:10",
+                "LongModSequenceGenerator:1000",
+                "LongSequenceGenerator",
+                "LongStringSequenceGenerator",
+                "LoremExtractGenerator:10:100",
+                "MapGenerator:data/variable_words.txt:5",
+                "MapStringGenerator:data/variable_words.txt:5",
+                "Murmur3Div:10",
+                "Murmur3DivString:10",
+                "NamedNumberGenerator:1000000",
+                "pool:65536 NamedNumberGenerator:1000000",
+                "RandomBytesGenerator:64",
+                "RandomStringGenerator",
+                "RandomStringRangeGenerator:1:1000000",
+                "ShuffleGenerator:1000000",
+                "ShuffleStringGenerator:1000000",
+                "StringGenerator:fixed",
+                "ThreadNumGenerator",
+                "ZipfGenerator:1:1000000000:0.99",
+                "ZipfStringGenerator:1:1000000000:0.99"
+        })
+        public String spec;
+
+        Generator<?> shared;
+
+        @Setup
+        public void setup() {
+            shared = new GeneratorInstantiator().getGenerator(spec);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class PerThread {
+        Generator<?> generator;
+        long cycle;
+
+        @Setup
+        public void setup(Spec spec) {
+            // ThreadNumGenerator reads the index of the activity thread it is called from
+            ThreadIndex.bind(threadCount.getAndIncrement(), "benchmark");
+            generator = new GeneratorInstantiator().getGenerator(spec.spec);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object perThread(PerThread state) {
+        return next(state.generator, state.cycle++);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object contended(Spec spec, PerThread state) {
+        return next(spec.shared, state.cycle++);
+    }
+
+    private static Object next(Generator<?> generator, long cycle) {
+        if (generator instanceof CycleGenerator) {
+            return ((CycleGenerator<?>) generator).apply(cycle);
+        }
+        return generator.get();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.metawiring.microbench;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.metawiring.load.core.HdrMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of the metrics which are updated for every op. Activity metrics are shared by all threads of an activity,
+ * so the contended benchmarks are the ones which match a running activity.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+        final MetricRegistry registry = new MetricRegistry();
+        final Timer timer = registry.timer("ops-total");
+        final Counter counter = registry.counter("async-pending");
+        final Histogram histogram = registry.histogram("tries-histogram");
+        final Timer hdrTimer = HdrMetrics.timer(registry, "hdr-ops-total");
+        final Histogram hdrHistogram = HdrMetrics.histogram(registry, "hdr-tries-histogram");
+    }
+
+    @State(Scope.Thread)
+    public static class PerThread extends Shared {
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long timerTimeStopPerThread(PerThread state) {
+        return state.timer.time().stop();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public long timerTimeStopContended(Shared state) {
+        return state.timer.time().stop();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void opCompletionPerThread(PerThread state) {
+        recordCompletion(state, 1_000_000L);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void opCompletionContended(Shared state) {
+        recordCompletion(state, 1_000_000L);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void hdrOpCompletionPerThread(PerThread state) {
+        recordHdrCompletion(state, 1_000_000L);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void hdrOpCompletionContended(Shared state) {
+        recordHdrCompletion(state, 1_000_000L);
+    }
+
+    /**
+     * The metrics part of CQLYamlActivity.recordCompletion, for one op which took one try, with the default
+     * reservoirs
+     */
+    private static void recordCompletion(Shared state, long nanos) {
+        state.counter.inc();
+        state.counter.dec();
+        state.timer.update(nanos, TimeUnit.NANOSECONDS);
+        state.histogram.update(1);
+    }
+
+    /**
+     * The same, with the HdrHistogram reservoirs which activities use
+     */
+    private static void recordHdrCompletion(Shared state, long nanos) {
+        state.counter.inc();
+        state.counter.dec();
+        state.hdrTimer.update(nanos, TimeUnit.NANOSECONDS);
+        state.hdrHistogram.update(1);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ *
+ *       Copyright 2015 Jonathan Shook
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ */
+package com.metawiring.microbench;
+
+import com.metawiring.load.activities.cql.CQLYamlActivity;
+import com.metawiring.load.activities.cql.CQLYamlActivityContext;
+import com.metawiring.load.activity.ActivityDispenser;
+import com.metawiring.load.activity.ActivityDispenserLocators;
+import com.metawiring.load.config.ActivityDef;
+import com.metawiring.load.config.TestClientConfig;
+import com.metawiring.load.core.ExecutionContext;
+import com.metawiring.load.core.ThreadIndex;
+import com.metawiring.load.generator.GeneratorInstantiator;
+import com.metawiring.load.generator.RuntimeScope;
+import com.metawiring.load.generator.ScopedGeneratorCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of one op through CQLYamlActivity's fifo and callback pipelines, including binding, against a loopback
+ * session whose ops complete at once, so only the client's own overhead is measured. As in the activity harness,
+ * each thread runs its own activity over its own range of cycles, and all of them share the activity context.
+ * Each op is paced, as with a rate, and the activity adapts its concurrency against a p99 target, so the completion stamps, the
+ * response timer, the concurrency controller and the SLO counter are all measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineBenchmark {
+
+    private final static long CYCLES_PER_THREAD = 1000000000000L;
+    private final static int MAX_ASYNC_PER_THREAD = 100;
+
+    @State(Scope.Benchmark)
+    public static class Activity {
+        @Param({"fifo", "callback"})
+        public String pipeline;
+
+        ExecutionContext context;
+        ActivityDispenser<?> dispenser;
+        CQLYamlActivityContext activityContext;
+
+        @Setup
+        public void setup(BenchmarkParams params) {
+            context = new ExecutionContext(TestClientConfig.builder().withLoopback("0").build());
+            context.startup();
+
+            int threads = params.getThreads();
+            ActivityDef def = ActivityDef.parseActivityDef("write-telemetry:" + (threads * CYCLES_PER_THREAD) + ":"
+                    + threads + ":" + (threads * MAX_ASYNC_PER_THREAD)
+                    + ":pipeline=" + pipeline + ":rate=1000000000:concurrency=aimd:targetp99=10");
+            dispenser = new ActivityDispenserLocators().get(def);
+            CQLYamlActivity initialActivity = (CQLYamlActivity) dispenser.getNewInstance();
+            activityContext = initialActivity.createContextToShare(def,
+                    new ScopedGeneratorCache(new GeneratorInstantiator(), RuntimeScope.activity), context);
+            initialActivity.loadSharedContext(activityContext);
+            // The loopback session learns the column types from the schema
+            initialActivity.createSchema();
+        }
+
+        @TearDown
+        public void tearDown() {
+            context.shutdown();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Harness {
+        CQLYamlActivity activity;
+        long cycle;
+
+        @Setup
+        public void setup(Activity shared, ThreadParams threadParams) {
+            int threadIndex = threadParams.getThreadIndex() + 1;
+            ThreadIndex.bind(threadIndex, shared.dispenser.getActivityName());
+            activity = (CQLYamlActivity) shared.dispenser.getNewInstance();
+            activity.loadSharedContext(shared.activityContext);
+            cycle = threadParams.getThreadIndex() * CYCLES_PER_THREAD;
+            activity.prepare(cycle, cycle + CYCLES_PER_THREAD, MAX_ASYNC_PER_THREAD);
+        }
+
+        @TearDown
+        public void tearDown() {
+            activity.cleanup();
+            ThreadIndex.unbind();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void singleThread(Harness harness) {
+        harness.activity.iterate(harness.cycle++, System.nanoTime());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void allThreads(Harness harness) {
+        harness.activity.iterate(harness.cycle++, System.nanoTime());
+    }
+}